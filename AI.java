@@ -1,8 +1,10 @@
 package jump61;
 
+import java.util.ArrayList;
 import java.util.Random;
-
-import static jump61.Side.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /** An automated Player.
  *  @author P. N. Hilfinger
@@ -13,113 +15,411 @@ class AI extends Player {
      *  SEED provides a random-number seed used for choosing moves.
      */
     AI(Game game, Side color, long seed) {
+        this(game, color, seed, new CriticalMassEvaluator());
+    }
+
+    /** A new player of GAME initially COLOR that chooses moves
+     *  automatically, using EVALUATOR to estimate the values of
+     *  positions.  SEED provides a random-number seed used for choosing
+     *  moves. */
+    AI(Game game, Side color, long seed, Evaluator evaluator) {
         super(game, color);
         _random = new Random(seed);
+        _evaluator = evaluator;
+        _table = new TranspositionTable(Defaults.TABLE_BITS);
+        _searcher = new Searcher(_table, _evaluator, null);
+        _ponderer = new Searcher(_table, _evaluator, null);
+        _solver = new EndgameSolver(Defaults.SOLVER_TABLE_BITS);
+        _helpers = new ArrayList<>();
     }
 
     /** winning value. */
-    static final int WIN_NUM = 1000;
+    static final int WIN_NUM = 100000;
 
     @Override
-    String getMove() {
-        Board board = getGame().getBoard();
+    void setBudget(long millis, long nodes) {
+        _timeLimit = millis;
+        _nodeLimit = nodes;
+    }
 
-        assert getSide() == board.whoseMove();
-        int choice = searchForMove();
-        getGame().reportMove(board.row(choice), board.col(choice));
-        return String.format("%d %d", board.row(choice), board.col(choice));
+    @Override
+    void setThreads(int threads) {
+        _threads = threads;
     }
 
-    /** Return a move after searching the game tree to DEPTH>0 moves
-     *  from the current position. Assumes the game is not over. */
-    private int searchForMove() {
-        Board work = new Board(getBoard());
-        int value;
-        assert getSide() == work.whoseMove();
-        _foundMove = -1;
-        if (getSide() == RED) {
-            value = minMax(work, 4, true,
-                    1, Integer.MIN_VALUE, Integer.MAX_VALUE);
-        } else {
-            value = minMax(work, 4, true,
-                    -1, Integer.MIN_VALUE, Integer.MAX_VALUE);
-        }
-        return _foundMove;
-    }
-
-
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _foundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _foundMove. If the game is over
-     *  on BOARD, does not set _foundMove. */
-    private int minMax(Board board, int depth, boolean saveMove,
-                       int sense, int alpha, int beta) {
-        if (depth == 0 || board.getWinner() != null) {
-            return staticEval(board, WIN_NUM);
-        }
-        int red = Integer.MIN_VALUE;
-        int blue = Integer.MAX_VALUE;
-        int response;
-        for (int i = 0; i < board.size() * board.size(); i++) {
-            if (board.isLegal(board.whoseMove(), i)) {
-                board.addSpot(board.whoseMove(), i);
-                if (sense == 1) {
-                    response = minMax(board, depth - 1, false,
-                            -1, alpha, beta);
-                    board.undo();
-                    if (response > red) {
-                        red = response;
-                        alpha = Math.max(alpha, red);
-                        if (alpha >= beta) {
-                            break;
-                        }
-                        if (saveMove) {
-                            _foundMove = i;
-                        }
-                    }
+    @Override
+    void setOpeningBook(OpeningBook book) {
+        _book = book;
+    }
+
+    @Override
+    void setTablebase(Tablebase tablebase) {
+        _tablebase = tablebase;
+    }
+
+    @Override
+    void reset(Side color, long seed) {
+        super.reset(color, seed);
+        stopPondering();
+        _random.setSeed(seed);
+        _table.clear();
+        _solver.clear();
+        _searcher.clear();
+        _ponderer.clear();
+        _helpers.clear();
+        _variation = NO_VARIATION;
+        _ponderMove = -1;
+    }
+
+    @Override
+    void dispose() {
+        super.dispose();
+        stopPondering();
+        if (_ponderPool != null) {
+            _ponderPool.shutdown();
+        }
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+    }
+
+    /** Return a move for the player to move on BOARD, found by iterative
+     *  deepening: searches to depths 1, 2, ..., returning the move found
+     *  by the deepest search completed.  With no time or node budget,
+     *  stops after Defaults.SEARCH_DEPTH; otherwise, continues until the
+     *  budget runs out (always completing depth 1).
+     *
+     *  With more than one thread, the extra threads run helper searches
+     *  (each on its own copy of the board, with varied depths and move
+     *  orders) that share my transposition table, and so fill it with
+     *  results that speed up the main search ("Lazy SMP").  Only the main
+     *  search's result is used.  Won positions in my tablebase and
+     *  positions in my opening book, if any, are not searched, and in
+     *  endgames (see isEndgame), a forced win found by my EndgameSolver
+     *  is played without further search.  Any pondering is stopped.  If
+     *  it was on BOARD, the time and nodes it took count against my
+     *  budget, and its move is used if that exhausts the budget (or,
+     *  with no budget, if it completed a search at least as deep as I
+     *  would make).  Otherwise, the search that follows finds
+     *  pondering's results in my transposition table, and so quickly
+     *  reaches the depth pondering did.  STOP and DEADLINE are as for
+     *  Player.findMove.  The solver
+     *  gets half the time left by my budget or DEADLINE, and half my
+     *  node budget (at most Defaults.SOLVER_NODES).  Assumes the game is
+     *  not over. */
+    @Override
+    int findMove(Board board, AtomicBoolean stop, long deadline) {
+        long start = System.nanoTime();
+        long timeLimit = _timeLimit * Searcher.NANOS_PER_MILLI;
+        long nodeLimit = _nodeLimit;
+        if (_ponderTask != null) {
+            boolean hit = board.zobristKey() == _ponderKey;
+            stopPondering();
+            if (hit && _ponderMove != -1) {
+                long time = start - _ponderStart, nodes = _ponderer.nodes();
+                boolean done;
+                if (timeLimit == 0 && nodeLimit == 0) {
+                    done = _ponderer.depthReached() >= Defaults.SEARCH_DEPTH;
                 } else {
-                    response = minMax(board, depth - 1, false,
-                            1, alpha, beta);
-                    board.undo();
-                    if (response < blue) {
-                        blue = response;
-                        beta = Math.min(beta, blue);
-                        if (alpha >= beta) {
-                            break;
-                        }
-                        if (saveMove) {
-                            _foundMove = i;
-                        }
-                    }
+                    done = (timeLimit > 0 && time >= timeLimit)
+                        || (nodeLimit > 0 && nodes >= nodeLimit);
                 }
+                if (done) {
+                    return record(board, _ponderMove, "ponder",
+                                  _ponderStart, 0);
+                }
+                timeLimit = timeLimit > 0 ? timeLimit - time : 0;
+                nodeLimit = nodeLimit > 0 ? nodeLimit - nodes : 0;
+            }
+        }
+        if (_tablebase != null) {
+            int move = _tablebase.move(board);
+            if (move != -1) {
+                return record(board, move, "tablebase", start, 0);
             }
         }
-        if (sense == 1) {
-            return red;
+        if (_book != null) {
+            int move = _book.move(board);
+            if (move != -1) {
+                return record(board, move, "book", start, 0);
+            }
+        }
+        boolean limited = timeLimit > 0 || nodeLimit > 0;
+        int maxDepth = limited ? Defaults.MAX_SEARCH_DEPTH
+            : Defaults.SEARCH_DEPTH;
+        long searchDeadline = timeLimit > 0 ? start + timeLimit : 0;
+        searchDeadline = Utils.earlier(searchDeadline, deadline);
+        long solverNodes = 0;
+        if (isEndgame(board)) {
+            long solverDeadline = timeLimit > 0 ? start + timeLimit / 2 : 0;
+            if (deadline != 0) {
+                solverDeadline = Utils.earlier(solverDeadline,
+                                               start + (deadline - start) / 2);
+            }
+            long solverLimit = nodeLimit > 0
+                ? Math.max(1, Math.min(Defaults.SOLVER_NODES, nodeLimit / 2))
+                : Defaults.SOLVER_NODES;
+            int move = _solver.solve(new Board(board),
+                                     Defaults.SOLVER_PLIES, stop,
+                                     solverLimit, solverDeadline);
+            solverNodes = _solver.nodes();
+            if (stop.get()) {
+                return -1;
+            } else if (move != -1) {
+                return record(board, move, "solver", start, solverNodes);
+            }
+        }
+        AtomicBoolean helpersStop = new AtomicBoolean(false);
+        ArrayList<ForkJoinTask<Integer>> helpers = new ArrayList<>();
+        for (int i = 1; i < _threads; i += 1) {
+            Searcher helper = helper(i - 1);
+            Board work = new Board(board);
+            int first = 1 + i % 2;
+            helpers.add(pool().submit(() ->
+                helper.deepen(work, first, Defaults.MAX_SEARCH_DEPTH,
+                              helpersStop, 0, 0)));
+        }
+        Board work = new Board(board);
+        assert getSide() == work.whoseMove();
+        int move = _searcher.deepen(work, 1, maxDepth,
+                                    stop, searchDeadline, nodeLimit);
+        helpersStop.set(true);
+        for (ForkJoinTask<Integer> helper : helpers) {
+            helper.join();
+        }
+        if (stop.get()) {
+            return -1;
+        }
+        return record(board, move, "search", start, solverNodes);
+    }
+
+    /** Begin searching, on a thread of its own, the position expected
+     *  after my opponent's reply to my last move: the second move of the
+     *  principal variation found for my last move, or else the best move
+     *  recorded in my transposition table for the current position.  The
+     *  results fill my transposition table, and if my opponent does make
+     *  the expected move, findMove may simply use the move found. */
+    @Override
+    void ponder() {
+        Board board = getBoard();
+        if (board.getWinner() != null || board.whoseMove() == getSide()) {
+            return;
+        }
+        int reply = predictedReply(board);
+        if (reply == -1) {
+            return;
+        }
+        Board work = new Board(board);
+        work.addSpot(work.whoseMove(), reply);
+        if (work.getWinner() != null
+            || (_ponderTask != null && work.zobristKey() == _ponderKey)) {
+            return;
+        }
+        stopPondering();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        _ponderStop = stop;
+        _ponderKey = work.zobristKey();
+        _ponderStart = System.nanoTime();
+        _ponderTask = ponderPool().submit(() ->
+            _ponderer.deepen(work, 1, Defaults.MAX_SEARCH_DEPTH,
+                             stop, 0, 0));
+    }
+
+    @Override
+    void stopPondering() {
+        if (_ponderTask != null) {
+            _ponderStop.set(true);
+            _ponderMove = _ponderTask.join();
+            _ponderTask = null;
+        }
+    }
+
+    /** Return the move I expect from the player to move on BOARD, or -1
+     *  if I have no prediction. */
+    private int predictedReply(Board board) {
+        int move;
+        if (_variation.length > 1 && board.zobristKey() == _variationKey) {
+            move = _variation[1];
         } else {
-            return blue;
+            long entry = _table.probe(board.zobristKey());
+            move = entry == 0 ? -1 : TranspositionTable.move(entry);
+        }
+        if (move != -1 && board.isLegal(board.whoseMove(), move)) {
+            return move;
+        }
+        return -1;
+    }
+
+    /** Return true iff I am pondering. */
+    boolean pondering() {
+        return _ponderTask != null;
+    }
+
+    /** Return a thread for pondering, creating it if needed. */
+    private ForkJoinPool ponderPool() {
+        if (_ponderPool == null) {
+            _ponderPool = new ForkJoinPool(1);
+        }
+        return _ponderPool;
+    }
+
+    /** Return the principal variation found by my last search: the line
+     *  of play, beginning with my move, that it expected.  Empty if my
+     *  last move did not come from a search. */
+    int[] principalVariation() {
+        return _variation;
+    }
+
+    @Override
+    SearchStats getStats() {
+        return _stats;
+    }
+
+    /** Record statistics for MOVE from BOARD, which came from SOURCE (as
+     *  for SearchStats.record) after a search begun at System.nanoTime()
+     *  value START, in which my solver visited SOLVERNODES nodes.  If
+     *  SOURCE is "search", includes the counts from the searches just
+     *  run by my Searchers, and if "ponder", those from my last
+     *  pondering (in which case START is when the pondering began).
+     *  Returns MOVE. */
+    private int record(Board board, int move, String source, long start,
+                       long solverNodes) {
+        long nodes, cutoffs, tableHits;
+        nodes = cutoffs = tableHits = 0;
+        int depth, maxJumps;
+        depth = maxJumps = 0;
+        _variation = NO_VARIATION;
+        if (source.equals("ponder")) {
+            _variation = _ponderer.principalVariation();
+            depth = _ponderer.depthReached();
+            nodes = _ponderer.nodes();
+            cutoffs = _ponderer.cutoffs();
+            tableHits = _ponderer.tableHits();
+            maxJumps = _ponderer.maxJumps();
+        } else if (source.equals("search")) {
+            _variation = _searcher.principalVariation();
+            depth = _searcher.depthReached();
+            for (int i = 0; i < _threads; i += 1) {
+                Searcher searcher = i == 0 ? _searcher : helper(i - 1);
+                nodes += searcher.nodes();
+                cutoffs += searcher.cutoffs();
+                tableHits += searcher.tableHits();
+                maxJumps = Math.max(maxJumps, searcher.maxJumps());
+            }
+        }
+        Board after = new Board(board);
+        after.addSpot(after.whoseMove(), move);
+        _variationKey = after.zobristKey();
+        _stats.record(source, System.nanoTime() - start, depth, nodes,
+                      solverNodes, cutoffs, tableHits, maxJumps);
+        Utils.debug(1, "%s: %s", getSide(), _stats);
+        return move;
+    }
+
+    /** Return true iff BOARD is far enough advanced that my
+     *  EndgameSolver should be tried before searching heuristically: on
+     *  a small board (at most Defaults.SOLVER_MAX_SIZE squares on a
+     *  side), once at most Defaults.SOLVER_EMPTY_SQUARES squares are
+     *  unclaimed, and otherwise, once no squares are unclaimed and at
+     *  most Defaults.SOLVER_LATE_SQUARES are left to my opponent. */
+    private boolean isEndgame(Board board) {
+        int empty = board.numOfSide(Side.WHITE);
+        return (board.size() <= Defaults.SOLVER_MAX_SIZE
+                && empty <= Defaults.SOLVER_EMPTY_SQUARES)
+            || (empty == 0
+                && board.numOfSide(getSide().opposite())
+                   <= Defaults.SOLVER_LATE_SQUARES);
+    }
+
+    /** Return helper Searcher #K, creating it if needed. */
+    private Searcher helper(int k) {
+        while (_helpers.size() <= k) {
+            _helpers.add(new Searcher(_table, _evaluator,
+                                      new Random(_random.nextLong())));
         }
+        return _helpers.get(k);
     }
 
-    /** Return a heuristic estimate of the value of board position B.
-     *  Use WINNINGVALUE to indicate a win for Red and -WINNINGVALUE to
-     *  indicate a win for Blue. */
-    private int staticEval(Board b, int winningValue) {
-        if (b.getWinner() == RED) {
-            return winningValue;
-        } else if (b.getWinner() == BLUE) {
-            return winningValue * -1;
+    /** Return a pool of threads for helper searches, (re)creating it if
+     *  the number of threads has changed. */
+    private ForkJoinPool pool() {
+        if (_pool == null || _pool.getParallelism() != _threads - 1) {
+            if (_pool != null) {
+                _pool.shutdown();
+            }
+            _pool = new ForkJoinPool(_threads - 1);
         }
-        return b.numOfSide(RED) - b.numOfSide(BLUE);
+        return _pool;
     }
 
     /** A random-number generator used for move selection. */
     private Random _random;
 
-    /** Used to convey moves discovered by minMax. */
-    private int _foundMove;
+    /** Static evaluation function used by all my Searchers. */
+    private final Evaluator _evaluator;
+
+    /** Results of previous searches, kept from move to move and shared
+     *  by all my Searchers. */
+    private final TranspositionTable _table;
+
+    /** The Searcher that chooses my moves. */
+    private final Searcher _searcher;
+
+    /** Finds forced wins in endgames. */
+    private final EndgameSolver _solver;
+
+    /** Searchers that help _searcher when using more than one thread. */
+    private final ArrayList<Searcher> _helpers;
+
+    /** Threads for helper searches, or null if not yet needed. */
+    private ForkJoinPool _pool;
+
+    /** Source of precomputed moves, or null if none. */
+    private OpeningBook _book;
+
+    /** Source of perfect moves on small boards, or null if none. */
+    private Tablebase _tablebase;
+
+    /** An empty principal variation. */
+    private static final int[] NO_VARIATION = new int[0];
+
+    /** Principal variation found by my last search. */
+    private int[] _variation = NO_VARIATION;
+
+    /** Zobrist key of the position after my last move. */
+    private long _variationKey;
+
+    /** Searches ahead while my opponent chooses a move. */
+    private final Searcher _ponderer;
+
+    /** Thread for _ponderer, or null if not yet needed. */
+    private ForkJoinPool _ponderPool;
+
+    /** The search being run by _ponderer, or null if none. */
+    private ForkJoinTask<Integer> _ponderTask;
+
+    /** Set to true to stop _ponderTask. */
+    private AtomicBoolean _ponderStop;
+
+    /** Zobrist key of the position being searched by _ponderer. */
+    private long _ponderKey;
+
+    /** System.nanoTime() value when _ponderTask began. */
+    private long _ponderStart;
+
+    /** The move found by the last pondering, or -1 if none. */
+    private int _ponderMove = -1;
+
+    /** Statistics about my moves. */
+    private final SearchStats _stats = new SearchStats();
+
+    /** Number of threads to search with. */
+    private int _threads = 1;
+
+    /** Per-move time budget in milliseconds, or 0 if none. */
+    private long _timeLimit;
+
+    /** Per-move budget of searched nodes, or 0 if none. */
+    private long _nodeLimit;
 
 }
@@ -0,0 +1,68 @@
+package jump61;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.Side.*;
+
+/** Unit tests of AIs.
+ *  @author Melody Ma
+ */
+public class AITest {
+
+    @Test
+    public void testNodeBudget() {
+        for (long nodes : new long[] { 500, 5_000, 50_000 }) {
+            Board board = SearcherTest.randomBoard(6, 8, nodes);
+            AI ai = new AI(null, board.whoseMove(), 0);
+            ai.setBudget(0, nodes);
+            int move = ai.findMove(board);
+            assertTrue("illegal move", board.isLegal(board.whoseMove(), move));
+            SearchStats stats = ai.getStats();
+            assertEquals("wrong source", "search", stats.getSource());
+            assertTrue(stats.getNodes() + " nodes searched for budget of "
+                       + nodes, stats.getNodes() <= nodes + 1
+                       && stats.getNodes() > nodes / 2);
+        }
+    }
+
+    @Test
+    public void testStats() {
+        AI ai = new AI(null, RED, 0);
+        SearchStats stats = ai.getStats();
+        assertEquals("moves before any", 0, stats.getMoves());
+        long total;
+        total = 0;
+        for (int k = 1; k <= 2; k += 1) {
+            ai.findMove(SearcherTest.randomBoard(6, 8, k));
+            assertEquals("wrong move count", k, stats.getMoves());
+            assertEquals("wrong source", "search", stats.getSource());
+            assertEquals("wrong depth", Defaults.SEARCH_DEPTH,
+                         stats.getDepth());
+            assertTrue("no nodes counted", stats.getNodes() > 0);
+            assertTrue("no time counted", stats.getMillis() > 0);
+            total += stats.getNodes();
+            assertEquals("wrong total", total, stats.getTotalNodes());
+        }
+    }
+
+    @Test
+    public void testReproducible() {
+        for (long seed = 0; seed < 4; seed += 1) {
+            Board board = SearcherTest.randomBoard(6, 8, seed);
+            for (long nodes : new long[] { 0, 20_000 }) {
+                int[] moves = new int[2];
+                for (int k = 0; k < moves.length; k += 1) {
+                    AI ai = new AI(null, board.whoseMove(), seed);
+                    ai.setThreads(1);
+                    ai.setBudget(0, nodes);
+                    moves[k] = ai.findMove(new Board(board));
+                    ai.dispose();
+                }
+                assertEquals("different moves for seed " + seed,
+                             moves[0], moves[1]);
+            }
+        }
+    }
+
+}
@@ -1,9 +1,9 @@
 package jump61;
 
 import java.util.function.Consumer;
-import java.util.ArrayList;
-import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Formatter;
+import java.util.Random;
 import static jump61.Side.*;
 import static jump61.Square.square;
 import static jump61.GameException.*;
@@ -16,6 +16,12 @@ import static jump61.GameException.*;
  *  A Board may be given a notifier---a Consumer<Board> whose
  *  .accept method is called whenever the Board's contents are changed.
  *
+ *  Internally, the contents are kept in flat primitive arrays indexed by
+ *  square number: a byte count of spots per square, plus one bit mask
+ *  per player recording which squares that player owns.  Squares are
+ *  only materialized (from the memo table in Square) when requested
+ *  through get.
+ *
  *  @author Melody Ma
  */
 class Board {
@@ -28,29 +34,19 @@ class Board {
     /** An N x N board in initial configuration. */
     Board(int N) {
         this();
-        _size = N;
-        _storage = new Square[_size][_size];
-        Square initial = square(WHITE, 1);
-        for (int i = 0; i < _size; i++) {
-            for (int j = 0; j < _size; j++) {
-                _storage[i][j] = initial;
-            }
-        }
-        _history = new ArrayList<>();
-        _current = 0;
+        allocate(N);
+        _undoMarks = new int[INITIAL_UNDO_SIZE];
+        _undoSquares = new int[INITIAL_UNDO_SIZE];
+        _undoValues = new int[INITIAL_UNDO_SIZE];
+        clearUndo();
     }
 
     /** A board whose initial contents are copied from BOARD0, but whose
      *  undo history is clear, and whose notifier does nothing. */
     Board(Board board0) {
         this(board0.size());
-        for (int r = 0; r < _size; r++) {
-            for (int c = 0; c < _size; c++) {
-                _storage[r][c] = board0.get(r + 1, c + 1);
-            }
-        }
-        _history.clear();
-        _current = 0;
+        internalCopy(board0);
+        clearUndo();
         _notifier = (s) -> { };
         _readonlyBoard = new ConstantBoard(this);
     }
@@ -63,25 +59,38 @@ class Board {
     /** (Re)initialize me to a cleared board with N squares on a side. Clears
      *  the undo history and sets the number of moves to 0. */
     void clear(int N) {
-        this._size = N;
-        _storage = new Square[_size][_size];
-        Square initial = square(WHITE, 1);
-        for (int i = 0; i < _size; i++) {
-            for (int j = 0; j < _size; j++) {
-                _storage[i][j] = initial;
-            }
-        }
-        _history = new ArrayList<>();
-        _current = 0;
+        allocate(N);
+        clearUndo();
         announce();
     }
 
+    /** Set my size to N and fill my storage with initial (white,
+     *  one-spot) squares, reusing the existing arrays when N is
+     *  unchanged. */
+    private void allocate(int N) {
+        if (_spots == null || N != _size) {
+            _size = N;
+            _spots = new byte[N * N];
+            _red = new long[(N * N + MASK_BITS - 1) / MASK_BITS];
+            _blue = new long[_red.length];
+        }
+        if (_neighbors == null || _neighbors.size() != N) {
+            _neighbors = NeighborTable.forSize(N);
+            _jumpSquares = new int[N * N];
+            _jumpNext = new int[N * N];
+        }
+        Arrays.fill(_spots, (byte) 1);
+        Arrays.fill(_red, 0L);
+        Arrays.fill(_blue, 0L);
+        _numRed = _numBlue = 0;
+        _numSpots = N * N;
+        _key = SIZE_KEYS[N];
+        Arrays.fill(_terms, 0);
+    }
+
     /** Copy the contents of BOARD into me. */
     void copy(Board board) {
-        _current = 0;
-        if (!(_history == null)) {
-            _history.clear();
-        }
+        clearUndo();
         internalCopy(board);
     }
 
@@ -89,9 +98,19 @@ class Board {
      *  history. Assumes BOARD and I have the same size. */
     private void internalCopy(Board board) {
         assert size() == board.size();
-        for (int r = 0; r < _size; r++) {
-            for (int c = 0; c < _size; c++) {
-                _storage[r][c] = board.get(r + 1, c + 1);
+        if (board._spots != null) {
+            System.arraycopy(board._spots, 0, _spots, 0, _spots.length);
+            System.arraycopy(board._red, 0, _red, 0, _red.length);
+            System.arraycopy(board._blue, 0, _blue, 0, _blue.length);
+            _numRed = board._numRed;
+            _numBlue = board._numBlue;
+            _numSpots = board._numSpots;
+            _key = board._key;
+            System.arraycopy(board._terms, 0, _terms, 0, _terms.length);
+        } else {
+            for (int n = 0; n < _size * _size; n++) {
+                Square sq = board.get(n);
+                internalSet(n, sq.getSpots(), sq.getSide());
             }
         }
     }
@@ -111,18 +130,24 @@ class Board {
      *  squares in row 1 number 0 - size()-1, in row 2 numbered
      *  size() - 2*size() - 1, etc. */
     Square get(int n) {
-        int row = row(n);
-        int col = col(n);
-        return _storage[row - 1][col - 1];
+        return square(sideOf(n), _spots[n]);
+    }
+
+    /** Return the Side owning square #N (WHITE if unowned). */
+    private Side sideOf(int n) {
+        long bit = 1L << n;
+        if ((_red[n / MASK_BITS] & bit) != 0) {
+            return RED;
+        } else if ((_blue[n / MASK_BITS] & bit) != 0) {
+            return BLUE;
+        } else {
+            return WHITE;
+        }
     }
 
     /** Returns the total number of spots on the board. */
     int numPieces() {
-        int numSpots = 0;
-        for (int i = 0; i < _size * _size; i++) {
-            numSpots += get(i).getSpots();
-        }
-        return numSpots;
+        return _numSpots;
     }
 
     /** Returns the Side of the player who would be next to move.  If the
@@ -178,13 +203,41 @@ class Board {
     boolean isLegal(Side player, int n) {
         if (!exists(n)) {
             return false;
-        } else if (get(n).getSide() == player.opposite()) {
+        } else if (sideOf(n) == player.opposite()) {
             return false;
         } else {
             return getWinner() == null;
         }
     }
 
+    /** Store in MOVES, in increasing order, the numbers of the squares to
+     *  which PLAYER (RED or BLUE) may legally add a spot, and return how
+     *  many there are (0 if the game is over).  MOVES must have room for
+     *  size() * size() squares.  Works a word of the ownership masks at a
+     *  time, rather than testing each square. */
+    int legalMoves(Side player, int[] moves) {
+        if (getWinner() != null) {
+            return 0;
+        }
+        long[] theirs = player == RED ? _blue : _red;
+        int numSquares = _size * _size;
+        int n;
+        n = 0;
+        for (int w = 0; w < theirs.length; w += 1) {
+            int base = w * MASK_BITS;
+            long open = ~theirs[w];
+            if (numSquares - base < MASK_BITS) {
+                open &= (1L << (numSquares - base)) - 1;
+            }
+            while (open != 0) {
+                moves[n] = base + Long.numberOfTrailingZeros(open);
+                n += 1;
+                open &= open - 1;
+            }
+        }
+        return n;
+    }
+
     /** Returns true iff PLAYER is allowed to move at this point. */
     boolean isLegal(Side player) {
         if (getWinner() == player.opposite()) {
@@ -201,9 +254,10 @@ class Board {
     /** Returns the winner of the current position, if the game is over,
      *  and otherwise null. */
     final Side getWinner() {
-        if (numOfSide(RED) == _size * _size) {
+        int N = size();
+        if (numOfSide(RED) == N * N) {
             return RED;
-        } else if (numOfSide(BLUE) == _size * _size) {
+        } else if (numOfSide(BLUE) == N * N) {
             return BLUE;
         } else {
             return null;
@@ -212,14 +266,47 @@ class Board {
 
     /** Return the number of squares of given SIDE. */
     int numOfSide(Side side) {
-        int sum = 0;
-        for (int i = 0; i < _size * _size; i++) {
-            Square curr = get(i);
-            if (curr.getSide() == side) {
-                sum += 1;
-            }
+        switch (side) {
+        case RED:
+            return _numRed;
+        case BLUE:
+            return _numBlue;
+        default:
+            return _size * _size - _numRed - _numBlue;
         }
-        return sum;
+    }
+
+    /** Return the total number of spots on squares owned by SIDE (RED or
+     *  BLUE). */
+    int spotsOf(Side side) {
+        return _terms[SPOT_TERMS + termIndex(side)];
+    }
+
+    /** Return the number of critical squares owned by SIDE (RED or
+     *  BLUE): those one spot short of overflowing. */
+    int numCritical(Side side) {
+        return _terms[CRITICAL_TERMS + termIndex(side)];
+    }
+
+    /** Return the number of pairs of adjacent squares in which the first
+     *  is a critical square of SIDE (RED or BLUE) and the second belongs
+     *  to SIDE's opponent, which SIDE could capture by starting a
+     *  cascade. */
+    int numThreats(Side side) {
+        return _terms[THREAT_TERMS + termIndex(side)];
+    }
+
+    /** Return the total positional weight of the squares owned by SIDE
+     *  (RED or BLUE), where corners weigh 3, other edge squares 2, and
+     *  interior squares 1. */
+    int positionWeight(Side side) {
+        return _terms[WEIGHT_TERMS + termIndex(side)];
+    }
+
+    /** Return the offset of SIDE (RED or BLUE) within a pair of
+     *  evaluation terms. */
+    private static int termIndex(Side side) {
+        return side == RED ? 0 : 1;
     }
 
     /** Add a spot from PLAYER at row R, column C.  Assumes
@@ -229,14 +316,11 @@ class Board {
             throw error("illegal move");
         }
         markUndo();
-        Square curr = get(r, c);
-        if (curr.getSpots() + 1 <= neighbors(r, c)) {
-            Square input = square(player, curr.getSpots() + 1);
-            _storage[r - 1][c - 1] = input;
-        } else {
-            Square input = square(player, curr.getSpots() + 1);
-            _storage[r - 1][c - 1] = input;
-            jump(sqNum(r, c));
+        _jumps = 0;
+        int n = sqNum(r, c);
+        simpleAdd(player, n, 1);
+        if (_spots[n] > _neighbors.degree(n)) {
+            jump(n);
         }
         _current += 1;
     }
@@ -261,14 +345,78 @@ class Board {
     }
 
     /** Set the square #N to NUM spots (0 <= NUM), and give it color PLAYER
-     *  if NUM > 0 (otherwise, white). Does not announce changes. */
+     *  if NUM > 0 (otherwise, white). Does not announce changes, but
+     *  keeps the running square and spot counts, the evaluation terms,
+     *  and the Zobrist key up to date. */
     private void internalSet(int n, int num, Side player) {
-        if (num == 0) {
-            Square input = square(WHITE, 0);
-            _storage[row(n) - 1][col(n) - 1] = input;
+        int word = n / MASK_BITS;
+        long bit = 1L << n;
+        adjustTerms(n, -1);
+        if ((_red[word] & bit) != 0) {
+            _numRed -= 1;
+            _key ^= SQUARE_KEYS[n][0][_spots[n]];
+        } else if ((_blue[word] & bit) != 0) {
+            _numBlue -= 1;
+            _key ^= SQUARE_KEYS[n][1][_spots[n]];
+        }
+        _numSpots -= _spots[n];
+        _red[word] &= ~bit;
+        _blue[word] &= ~bit;
+        if (num == 0 || player == WHITE) {
+            _spots[n] = 1;
         } else {
-            Square input = square(player, num);
-            _storage[row(n) - 1][col(n) - 1] = input;
+            _spots[n] = (byte) num;
+            if (player == RED) {
+                _red[word] |= bit;
+                _numRed += 1;
+                _key ^= SQUARE_KEYS[n][0][num];
+            } else {
+                _blue[word] |= bit;
+                _numBlue += 1;
+                _key ^= SQUARE_KEYS[n][1][num];
+            }
+        }
+        _numSpots += _spots[n];
+        adjustTerms(n, 1);
+    }
+
+    /** Add SIGN times the contribution of square #N to my evaluation
+     *  terms (see _terms). */
+    private void adjustTerms(int n, int sign) {
+        int s = owner(n);
+        NeighborTable nbrs = _neighbors;
+        int deg = nbrs.degree(n);
+        boolean critical = _spots[n] == deg;
+        if (s >= 0) {
+            _terms[SPOT_TERMS + s] += sign * _spots[n];
+            _terms[WEIGHT_TERMS + s] += sign * (MAX_WEIGHT - deg);
+            if (critical) {
+                _terms[CRITICAL_TERMS + s] += sign;
+            }
+        }
+        for (int k = nbrs.start(n), end = nbrs.end(n); k < end; k += 1) {
+            int m = nbrs.target(k);
+            int t = owner(m);
+            if (s >= 0 && t == 1 - s) {
+                if (critical) {
+                    _terms[THREAT_TERMS + s] += sign;
+                }
+                if (_spots[m] == nbrs.degree(m)) {
+                    _terms[THREAT_TERMS + t] += sign;
+                }
+            }
+        }
+    }
+
+    /** Return 0 if square #N is RED, 1 if BLUE, and -1 if WHITE. */
+    private int owner(int n) {
+        long bit = 1L << n;
+        if ((_red[n / MASK_BITS] & bit) != 0) {
+            return 0;
+        } else if ((_blue[n / MASK_BITS] & bit) != 0) {
+            return 1;
+        } else {
+            return -1;
         }
     }
 
@@ -278,111 +426,114 @@ class Board {
     void undo() {
         if (_current > 0) {
             _current -= 1;
-            if (_current == -1) {
-                _history.remove(_current);
-                Board lastBoard = new Board(_size);
-                internalCopy(lastBoard);
-            } else {
-                Board lastBoard = _history.remove(_current);
-                internalCopy(lastBoard);
+            int mark = _undoMarks[_current];
+            while (_undoTop > mark) {
+                _undoTop -= 1;
+                int value = _undoValues[_undoTop];
+                internalSet(_undoSquares[_undoTop], value & SPOTS_MASK,
+                            SIDES[value >>> SIDE_SHIFT]);
             }
         }
     }
 
     /** Record the beginning of a move in the undo history. */
     private void markUndo() {
-        Board newBoard = new Board(_size);
-        newBoard.internalCopy(this);
-        _history.add(newBoard);
+        if (_current == _undoMarks.length) {
+            _undoMarks = Arrays.copyOf(_undoMarks, 2 * _current);
+        }
+        _undoMarks[_current] = _undoTop;
+    }
+
+    /** Record the current contents of square #N in the undo history, so
+     *  that undo can restore them. */
+    private void recordUndo(int n) {
+        if (_undoTop == _undoSquares.length) {
+            _undoSquares = Arrays.copyOf(_undoSquares, 2 * _undoTop);
+            _undoValues = Arrays.copyOf(_undoValues, 2 * _undoTop);
+        }
+        _undoSquares[_undoTop] = n;
+        _undoValues[_undoTop] =
+            (sideOf(n).ordinal() << SIDE_SHIFT) | _spots[n];
+        _undoTop += 1;
+    }
+
+    /** Clear the undo history. */
+    private void clearUndo() {
+        _current = 0;
+        _undoTop = 0;
     }
 
     /** Add DELTASPOTS spots of side PLAYER to row R, column C,
      *  updating counts of numbers of squares of each color. */
     private void simpleAdd(Side player, int r, int c, int deltaSpots) {
-        internalSet(r, c, deltaSpots + get(r, c).getSpots(), player);
+        simpleAdd(player, sqNum(r, c), deltaSpots);
     }
 
     /** Add DELTASPOTS spots of color PLAYER to square #N,
-     *  updating counts of numbers of squares of each color. */
+     *  updating counts of numbers of squares of each color, and
+     *  recording the previous contents in the undo history. */
     private void simpleAdd(Side player, int n, int deltaSpots) {
-        internalSet(n, deltaSpots + get(n).getSpots(), player);
+        recordUndo(n);
+        internalSet(n, deltaSpots + _spots[n], player);
     }
 
-    /** Used in jump to keep track of squares needing processing.  Allocated
-     *  here to cut down on allocations. */
-    private final ArrayDeque<Integer> _workQueue = new ArrayDeque<>();
-
     /** Do all jumping on this board, assuming that initially, S is the only
-     *  square that might be over-full. */
+     *  square that might be over-full.  Rather than recursing, we keep an
+     *  explicit stack of pending squares, each paired with the position in
+     *  the neighbor table of the next neighbor to receive a spot from it
+     *  (or -1 if the square has yet to be checked for over-fullness).
+     *  Spots are thus handed out in the same depth-first order as a
+     *  recursive traversal, which matters when the game is won part way
+     *  through a cascade, but chain reactions of any length use no Java
+     *  stack.  Counts the jumps in _jumps. */
     private void jump(int S) {
-        while (exists(S)) {
-            if (numOfSide(RED) == _size * _size
-                    || numOfSide(BLUE) == _size * _size) {
-                break;
-            } else if (get(S).getSpots() <= neighbors(S)) {
-                break;
-            } else {
-                Square curr = get(S);
-                int currSpots = curr.getSpots();
-                Side currSide = curr.getSide();
-                int numNeighbors = neighbors(S);
-                Square input = square(currSide, currSpots - numNeighbors);
-                _storage[row(S) - 1][col(S) - 1] = input;
-                ArrayList<Integer> allNeighbors = getNeighbor(S);
-                for (int i = 0; i < numNeighbors; i++) {
-                    int currNeighbor = allNeighbors.get(i);
-                    simpleAdd(currSide, currNeighbor, 1);
-                    jump(allNeighbors.get(i));
+        Side player = sideOf(S);
+        NeighborTable nbrs = _neighbors;
+        int sp;
+        sp = pushJump(0, S);
+        while (sp > 0) {
+            int top = sp - 1;
+            int sq = _jumpSquares[top];
+            int k = _jumpNext[top];
+            if (k < 0) {
+                int deg = nbrs.degree(sq);
+                if (getWinner() != null || _spots[sq] <= deg) {
+                    sp -= 1;
+                    continue;
+                }
+                simpleAdd(player, sq, -deg);
+                _jumps += 1;
+                k = nbrs.start(sq);
+            }
+            if (k < nbrs.end(sq)) {
+                int nb = nbrs.target(k);
+                _jumpNext[top] = k + 1;
+                simpleAdd(player, nb, 1);
+                if (_spots[nb] > nbrs.degree(nb)) {
+                    sp = pushJump(sp, nb);
                 }
+            } else {
+                _jumpNext[top] = -1;
             }
         }
     }
 
-    /** Helper function of get all the neighbors of square S. */
-    /** set parameter.
-     * @param S square number.
-     * @return arraylist of all neighbors.
-     */
-    private ArrayList<Integer> getNeighbor(int S) {
-        int row = row(S);
-        int col = col(S);
-        ArrayList<Integer> result = new ArrayList<>();
-        if (S == 0) {
-            result.add(1);
-            result.add(_size);
-        } else if (S >= 1 && S <= _size - 2) {
-            result.add(S - 1);
-            result.add(S + 1);
-            result.add(S + _size);
-        } else if (S == _size - 1) {
-            result.add(S - 1);
-            result.add(S + _size);
-        } else if (S % _size == 0 && S >= _size && S < _size * _size - _size) {
-            result.add(S - _size);
-            result.add(S + _size);
-            result.add(S + 1);
-        } else if ((S + 1) % _size == 0 && S > _size
-                && (S + 1) < _size * _size) {
-            result.add(S - _size);
-            result.add(S + _size);
-            result.add(S - 1);
-        } else if (S == _size * _size - _size) {
-            result.add(S - _size);
-            result.add(S + 1);
-        } else if (S > _size * _size - _size && S < _size * _size - 1) {
-            result.add(S + 1);
-            result.add(S - 1);
-            result.add(S - _size);
-        } else if (S == _size * _size - 1) {
-            result.add(S - _size);
-            result.add(S - 1);
-        } else {
-            result.add(S - 1);
-            result.add(S + 1);
-            result.add(S + _size);
-            result.add(S - _size);
+    /** Push square S onto the jump stack, whose current depth is SP,
+     *  growing the stack if needed.  Returns the new depth. */
+    private int pushJump(int sp, int S) {
+        if (sp == _jumpSquares.length) {
+            _jumpSquares = Arrays.copyOf(_jumpSquares, 2 * sp);
+            _jumpNext = Arrays.copyOf(_jumpNext, 2 * sp);
         }
-        return result;
+        _jumpSquares[sp] = S;
+        _jumpNext[sp] = -1;
+        return sp + 1;
+    }
+
+    /** Return the number of times a square jumped during the most recent
+     *  addSpot. */
+    int jumps() {
+        return _jumps;
     }
 
     /** Returns my dumped representation. */
@@ -428,27 +579,17 @@ class Board {
 
     /** Returns the number of neighbors of the square at row R, column C. */
     int neighbors(int r, int c) {
-        int size = size();
-        int n;
-        n = 0;
-        if (r > 1) {
-            n += 1;
-        }
-        if (c > 1) {
-            n += 1;
-        }
-        if (r < size) {
-            n += 1;
-        }
-        if (c < size) {
-            n += 1;
-        }
-        return n;
+        return neighbors(sqNum(r, c));
     }
 
     /** Returns the number of neighbors of square #N. */
     int neighbors(int n) {
-        return neighbors(row(n), col(n));
+        return neighborTable().degree(n);
+    }
+
+    /** Returns the (shared, immutable) adjacency table for my size. */
+    NeighborTable neighborTable() {
+        return _neighbors;
     }
 
     @Override
@@ -457,10 +598,14 @@ class Board {
             return false;
         } else {
             Board B = (Board) obj;
-            if (_size != B._size) {
+            if (size() != B.size()) {
                 return false;
+            } else if (_spots != null && B._spots != null) {
+                return Arrays.equals(_spots, B._spots)
+                    && Arrays.equals(_red, B._red)
+                    && Arrays.equals(_blue, B._blue);
             } else {
-                for (int i = 0; i < _size * _size; i++) {
+                for (int i = 0; i < size() * size(); i++) {
                     if (!get(i).equals(B.get(i))) {
                         return false;
                     }
@@ -470,9 +615,18 @@ class Board {
         }
     }
 
+    /** Return a 64-bit Zobrist hash of my contents: the exclusive or of a
+     *  fixed random key for my size and one for each (square, side, spots)
+     *  combination on a non-white square.  Equal boards have equal keys,
+     *  and the keys are the same from one run of the program to the
+     *  next. */
+    long zobristKey() {
+        return _key;
+    }
+
     @Override
     public int hashCode() {
-        return numPieces();
+        return Long.hashCode(zobristKey());
     }
 
     /** Set my notifier to NOTIFY. */
@@ -498,13 +652,109 @@ class Board {
     /** Size of the board. */
     private int _size;
 
-    /** Storage of all the squares. */
-    private Square[][] _storage;
+    /** Number of squares covered by one word of an ownership mask. */
+    private static final int MASK_BITS = Long.SIZE;
+
+    /** Number of spots on each square, indexed by square number.  Unowned
+     *  squares always hold 1. */
+    private byte[] _spots;
+
+    /** Bit masks of the squares owned by RED and by BLUE, respectively.
+     *  Square #N is bit N % MASK_BITS of word N / MASK_BITS. */
+    private long[] _red, _blue;
+
+    /** Number of squares owned by RED and by BLUE, respectively. */
+    private int _numRed, _numBlue;
+
+    /** Total number of spots on the board. */
+    private int _numSpots;
+
+    /** Zobrist hash of my current contents (see zobristKey). */
+    private long _key;
+
+    /** Largest number of spots on a square covered by SQUARE_KEYS. */
+    private static final int MAX_KEYED_SPOTS = 15;
+
+    /** Random keys for each board size. */
+    private static final long[] SIZE_KEYS =
+        new long[Defaults.MAX_BOARD_SIZE + 1];
+
+    /** Random keys for each square number, player (0 for RED, 1 for
+     *  BLUE), and number of spots. */
+    private static final long[][][] SQUARE_KEYS =
+        new long[Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE][2]
+            [MAX_KEYED_SPOTS + 1];
+
+    static {
+        Random keys = new Random(0x6a756d703631L);
+        for (int N = 0; N < SIZE_KEYS.length; N += 1) {
+            SIZE_KEYS[N] = keys.nextLong();
+        }
+        for (long[][] square : SQUARE_KEYS) {
+            for (long[] side : square) {
+                for (int k = 0; k < side.length; k += 1) {
+                    side[k] = keys.nextLong();
+                }
+            }
+        }
+    }
+
+    /** Running evaluation terms.  For each kind of term, there are two
+     *  elements, the first for RED and the second for BLUE, starting at
+     *  the indices SPOT_TERMS (spots on the side's squares), CRITICAL_TERMS
+     *  (number of the side's critical squares), THREAT_TERMS (number of
+     *  the side's critical squares adjacent to opposing squares, counting
+     *  each adjacency), and WEIGHT_TERMS (total positional weight of the
+     *  side's squares). */
+    private final int[] _terms = new int[8];
+
+    /** Offsets of the kinds of terms in _terms. */
+    private static final int
+        SPOT_TERMS = 0, CRITICAL_TERMS = 2, THREAT_TERMS = 4,
+        WEIGHT_TERMS = 6;
+
+    /** The positional weight of a square with K neighbors is
+     *  MAX_WEIGHT - K. */
+    private static final int MAX_WEIGHT = 5;
+
+    /** Adjacency table for my size. */
+    private NeighborTable _neighbors;
+
+    /** The stack of pending squares used by jump, and for each, the index
+     *  of its next neighbor to receive a spot.  Allocated here to avoid
+     *  allocation during moves. */
+    private int[] _jumpSquares, _jumpNext;
+
+    /** Number of jumps during the most recent addSpot. */
+    private int _jumps;
+
+    /** Initial capacity of the undo history arrays. */
+    private static final int INITIAL_UNDO_SIZE = 64;
+
+    /** Sides indexed by ordinal, for decoding the undo history. */
+    private static final Side[] SIDES = Side.values();
+
+    /** Position of the side ordinal in an encoded square of the undo
+     *  history.  The low bits hold the number of spots. */
+    private static final int SIDE_SHIFT = 8;
+
+    /** Mask for the spots of an encoded square in the undo history. */
+    private static final int SPOTS_MASK = (1 << SIDE_SHIFT) - 1;
+
+    /** The undo history is a journal of the squares changed by each move,
+     *  in order of change.  _undoSquares[k] is the number of the square
+     *  changed by entry k, and _undoValues[k] its prior contents, encoded
+     *  as (side ordinal << SIDE_SHIFT) | spots. */
+    private int[] _undoSquares, _undoValues;
+
+    /** Number of entries in the undo journal. */
+    private int _undoTop;
 
-    /** History of all the moves. */
-    private ArrayList<Board> _history;
+    /** _undoMarks[k] is the size of the undo journal just before move #k
+     *  was made. */
+    private int[] _undoMarks;
 
-    /** The position of the current state in _history. */
+    /** Number of moves recorded in the undo history. */
     private int _current;
 
 }
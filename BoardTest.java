@@ -2,6 +2,9 @@ package jump61;
 
 import static jump61.Side.*;
 
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -52,6 +55,304 @@ public class BoardTest {
         checkBoard("#0U", B);
     }
 
+    @Test
+    public void testCounts() {
+        Board B = new Board(4);
+        assertEquals("wrong spot total", 16, B.numPieces());
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 1, 2);
+        B.addSpot(RED, 1, 1);
+        assertEquals("wrong spot total", 19, B.numPieces());
+        assertEquals("wrong count", 3, B.numOfSide(RED));
+        assertEquals("wrong count", 0, B.numOfSide(BLUE));
+        assertEquals("wrong count", 13, B.numOfSide(WHITE));
+        B.undo();
+        assertEquals("wrong spot total", 18, B.numPieces());
+        assertEquals("wrong count", 1, B.numOfSide(RED));
+        assertEquals("wrong count", 1, B.numOfSide(BLUE));
+        assertNull("premature winner", B.getWinner());
+    }
+
+    @Test
+    public void testNeighbors() {
+        Board B = new Board(4);
+        assertEquals("corner", 2, B.neighbors(1, 1));
+        assertEquals("edge", 3, B.neighbors(1, 3));
+        assertEquals("interior", 4, B.neighbors(3, 2));
+        assertTrue("table not shared",
+                   B.neighborTable() == new Board(4).neighborTable());
+        NeighborTable T = B.neighborTable();
+        int total;
+        total = 0;
+        for (int n = 0; n < 16; n += 1) {
+            for (int k = T.start(n); k < T.end(n); k += 1) {
+                int m = T.target(k);
+                assertEquals("not adjacent", 1,
+                             Math.abs(B.row(n) - B.row(m))
+                             + Math.abs(B.col(n) - B.col(m)));
+                total += 1;
+            }
+        }
+        assertEquals("wrong number of adjacencies", 48, total);
+    }
+
+    @Test
+    public void testZobrist() {
+        Board B = new Board(5);
+        long initial = B.zobristKey();
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 3, 3);
+        Board C = new Board(5);
+        C.addSpot(RED, 3, 3);
+        C.addSpot(BLUE, 1, 1);
+        assertNotEquals("colors not hashed", B.zobristKey(), C.zobristKey());
+        C.clear(5);
+        C.set(3, 3, 2, BLUE);
+        C.set(1, 1, 2, RED);
+        assertEquals("keys depend on history", B.zobristKey(), C.zobristKey());
+        assertEquals("bad hashCode", B.hashCode(), C.hashCode());
+        assertEquals("bad copy", B.zobristKey(), new Board(B).zobristKey());
+        B.undo();
+        B.undo();
+        assertEquals("undo does not restore key", initial, B.zobristKey());
+    }
+
+    @Test
+    public void testTerms() {
+        Board B = new Board(4);
+        B.set(1, 1, 2, RED);
+        B.set(1, 2, 1, BLUE);
+        B.set(2, 2, 3, BLUE);
+        assertEquals("wrong spots", 2, B.spotsOf(RED));
+        assertEquals("wrong spots", 4, B.spotsOf(BLUE));
+        assertEquals("wrong critical", 1, B.numCritical(RED));
+        assertEquals("wrong critical", 0, B.numCritical(BLUE));
+        assertEquals("wrong threats", 1, B.numThreats(RED));
+        assertEquals("wrong threats", 0, B.numThreats(BLUE));
+        assertEquals("wrong weight", 3, B.positionWeight(RED));
+        assertEquals("wrong weight", 3, B.positionWeight(BLUE));
+        B.set(1, 2, 3, BLUE);
+        assertEquals("wrong threats", 1, B.numThreats(BLUE));
+        B.set(1, 2, 0, BLUE);
+        assertEquals("wrong threats", 0, B.numThreats(RED));
+        assertEquals("wrong spots", 3, B.spotsOf(BLUE));
+    }
+
+    @Test
+    public void testTablebase() {
+        Tablebase tablebase = Tablebase.generate(2);
+        assertFalse("covers 3x3", tablebase.covers(new Board(3)));
+        checkTablebase(tablebase, new Board(2), new EndgameSolver(10));
+    }
+
+    @Test
+    public void testLegalMoves() {
+        java.util.Random random = new java.util.Random(61);
+        for (int N = 2; N <= 10; N += 1) {
+            Board B = new Board(N);
+            int[] moves = new int[N * N];
+            while (true) {
+                Side player = B.whoseMove();
+                int numMoves = B.legalMoves(player, moves);
+                int k = 0;
+                for (int i = 0; i < N * N; i += 1) {
+                    if (B.isLegal(player, i)) {
+                        assertTrue("missing move " + i, k < numMoves);
+                        assertEquals("wrong move", i, moves[k]);
+                        k += 1;
+                    }
+                }
+                assertEquals("extra moves", k, numMoves);
+                if (numMoves == 0) {
+                    break;
+                }
+                B.addSpot(player, moves[random.nextInt(numMoves)]);
+            }
+        }
+    }
+
+    @Test
+    public void testPerft() {
+        assertEquals("4x4 depth 4", 50520, Perft.count(new Board(4), 4));
+        Board B = new Board(3);
+        assertEquals("3x3 depth 6", countByCopying(B, 6), Perft.count(B, 6));
+        assertEquals("perft changed board", new Board(3), B);
+    }
+
+    @Test
+    public void testLongCascade() {
+        int N = 10;
+        Board B = new Board(N);
+        for (int i = 0; i < N * N; i += 1) {
+            B.set(B.row(i), B.col(i), B.neighbors(i), BLUE);
+        }
+        /* Of all squares, a red square at 9 2 is the last that a cascade
+         * from 1 1 captures, so that every square jumps. */
+        B.set(9, 2, 1, RED);
+        assertEquals("wrong side to move", BLUE, B.whoseMove());
+        int jumps = checkCascade(B, 0);
+        assertTrue("short cascade: " + jumps + " jumps", jumps >= N * N);
+    }
+
+    @Test
+    public void testCascades() {
+        Random random = new Random(61);
+        for (int trial = 0; trial < 20; trial += 1) {
+            int N = 2 + random.nextInt(9);
+            Board B = new Board(N);
+            for (int i = 0; i < N * N; i += 1) {
+                B.set(B.row(i), B.col(i), 1 + random.nextInt(B.neighbors(i)),
+                      random.nextBoolean() ? RED : BLUE);
+            }
+            if (B.getWinner() != null) {
+                continue;
+            }
+            for (int i = 0; i < N * N; i += 1) {
+                if (B.isLegal(B.whoseMove(), i)) {
+                    checkCascade(B, i);
+                }
+            }
+        }
+    }
+
+    /** Check that adding a spot to square #S of B, for the player to move,
+     *  has the same result as a recursive cascade in the order used
+     *  before Board.jump was made iterative, and that undoing the move
+     *  restores B exactly.  Returns the number of jumps. */
+    private int checkCascade(Board B, int S) {
+        int N = B.size();
+        Board before = new Board(B);
+        int[] spots = new int[N * N];
+        Side[] sides = new Side[N * N];
+        for (int i = 0; i < N * N; i += 1) {
+            spots[i] = B.get(i).getSpots();
+            sides[i] = B.get(i).getSide();
+        }
+        Side player = B.whoseMove();
+        spots[S] += 1;
+        sides[S] = player;
+        int jumps = recursiveJump(N, spots, sides, S);
+        B.addSpot(player, S);
+        assertEquals("wrong jump count", jumps, B.jumps());
+        for (int i = 0; i < N * N; i += 1) {
+            String msg = String.format("square #%d after move #%d on%s%s",
+                                       i, S, NL, before);
+            assertEquals(msg, spots[i], B.get(i).getSpots());
+            assertEquals(msg, sides[i], B.get(i).getSide());
+        }
+        B.undo();
+        assertEquals("undo did not restore board", before, B);
+        assertEquals("undo did not restore key", before.zobristKey(),
+                     B.zobristKey());
+        for (Side side : new Side[] { RED, BLUE }) {
+            assertEquals("wrong count", before.numOfSide(side),
+                         B.numOfSide(side));
+            assertEquals("wrong spots", before.spotsOf(side),
+                         B.spotsOf(side));
+            assertEquals("wrong criticals", before.numCritical(side),
+                         B.numCritical(side));
+            assertEquals("wrong threats", before.numThreats(side),
+                         B.numThreats(side));
+        }
+        return jumps;
+    }
+
+    /** Distribute the spots of square #S of an N x N board, whose squares
+     *  have SPOTS[i] spots and belong to SIDES[i], while it is over-full
+     *  and the game is not won, recursively and in the order used before
+     *  Board.jump was made iterative.  Returns the number of jumps. */
+    private int recursiveJump(int N, int[] spots, Side[] sides, int S) {
+        int jumps;
+        jumps = 0;
+        int[] nbrs = recursiveNeighbors(N, S);
+        while (!won(sides) && spots[S] > nbrs.length) {
+            spots[S] -= nbrs.length;
+            jumps += 1;
+            for (int nb : nbrs) {
+                spots[nb] += 1;
+                sides[nb] = sides[S];
+                jumps += recursiveJump(N, spots, sides, nb);
+            }
+        }
+        return jumps;
+    }
+
+    /** Return true iff all of SIDES are RED or all are BLUE. */
+    private boolean won(Side[] sides) {
+        for (Side side : sides) {
+            if (side == WHITE || side != sides[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return the neighbors of square #S of an N x N board, in the order
+     *  in which the recursive Board.jump gave them spots. */
+    private int[] recursiveNeighbors(int N, int S) {
+        if (S == 0) {
+            return new int[] { 1, N };
+        } else if (S >= 1 && S <= N - 2) {
+            return new int[] { S - 1, S + 1, S + N };
+        } else if (S == N - 1) {
+            return new int[] { S - 1, S + N };
+        } else if (S % N == 0 && S >= N && S < N * N - N) {
+            return new int[] { S - N, S + N, S + 1 };
+        } else if ((S + 1) % N == 0 && S > N && S + 1 < N * N) {
+            return new int[] { S - N, S + N, S - 1 };
+        } else if (S == N * N - N) {
+            return new int[] { S - N, S + 1 };
+        } else if (S > N * N - N && S < N * N - 1) {
+            return new int[] { S + 1, S - 1, S - N };
+        } else if (S == N * N - 1) {
+            return new int[] { S - N, S - 1 };
+        } else {
+            return new int[] { S - 1, S + 1, S + N, S - N };
+        }
+    }
+
+    /** Return the count of leaves DEPTH moves below B, as for Perft.count,
+     *  but making each move on a fresh copy rather than undoing it. */
+    private long countByCopying(Board B, int depth) {
+        if (depth == 0 || B.getWinner() != null) {
+            return 1;
+        }
+        long result = 0;
+        for (int i = 0; i < B.size() * B.size(); i += 1) {
+            if (B.isLegal(B.whoseMove(), i)) {
+                Board next = new Board(B);
+                next.addSpot(B.whoseMove(), i);
+                result += countByCopying(next, depth - 1);
+            }
+        }
+        return result;
+    }
+
+    /** Check that TABLEBASE agrees with SOLVER on B and on every position
+     *  reachable from it. */
+    private void checkTablebase(Tablebase tablebase, Board B,
+                                EndgameSolver solver) {
+        boolean wins = solver.solve(new Board(B), 15,
+                                    new AtomicBoolean(false), 0, 0) != -1;
+        assertEquals("wrong value for" + NL + B,
+                     wins ? Tablebase.WIN : Tablebase.LOSS,
+                     tablebase.value(B));
+        if (wins) {
+            int move = tablebase.move(B);
+            assertTrue("illegal move", B.isLegal(B.whoseMove(), move));
+        }
+        Side player = B.whoseMove();
+        for (int i = 0; i < B.size() * B.size(); i += 1) {
+            if (B.isLegal(player, i)) {
+                B.addSpot(player, i);
+                if (B.getWinner() == null) {
+                    checkTablebase(tablebase, B, solver);
+                }
+                B.undo();
+            }
+        }
+    }
+
     /** Checks that B conforms to the description given by CONTENTS.
      *  CONTENTS should be a sequence of groups of 4 items:
      *  r, c, n, s, where r and c are row and column number of a square of B,
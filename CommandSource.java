@@ -20,4 +20,13 @@ interface CommandSource {
      *  prompts for input, use PROMPT, if not null, to do so. */
     String getCommand(String prompt);
 
+    /** Returns one command string, as for getCommand, if one is
+     *  available without waiting, and otherwise null.  By default, never
+     *  has a command available, so that a source that cannot be polled
+     *  (such as one that reads a script) is consulted only through
+     *  getCommand. */
+    default String pollCommand() {
+        return null;
+    }
+
 }
@@ -43,21 +43,66 @@ class ConstantBoard extends Board {
         return _board.isLegal(player, r, c);
     }
 
+    @Override
+    boolean isLegal(Side player, int n) {
+        return _board.isLegal(player, n);
+    }
+
+    @Override
+    int legalMoves(Side player, int[] moves) {
+        return _board.legalMoves(player, moves);
+    }
+
     @Override
     boolean isLegal(Side player) {
         return _board.isLegal(player);
     }
 
+    @Override
+    NeighborTable neighborTable() {
+        return _board.neighborTable();
+    }
+
     @Override
     int numOfSide(Side color) {
         return _board.numOfSide(color);
     }
 
+    @Override
+    int spotsOf(Side side) {
+        return _board.spotsOf(side);
+    }
+
+    @Override
+    int numCritical(Side side) {
+        return _board.numCritical(side);
+    }
+
+    @Override
+    int numThreats(Side side) {
+        return _board.numThreats(side);
+    }
+
+    @Override
+    int positionWeight(Side side) {
+        return _board.positionWeight(side);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return _board.equals(obj);
     }
 
+    @Override
+    long zobristKey() {
+        return _board.zobristKey();
+    }
+
+    @Override
+    int jumps() {
+        return _board.jumps();
+    }
+
     @Override
     public int hashCode() {
         return _board.hashCode();
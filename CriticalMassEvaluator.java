@@ -0,0 +1,33 @@
+package jump61;
+
+import static jump61.Side.*;
+
+/** The default Evaluator.  It combines differences between the sides in
+ *  squares owned, spots owned, critical squares (those one spot short of
+ *  overflowing), threats (adjacencies between a side's critical square
+ *  and an opposing square, which an opponent's critical square makes a
+ *  vulnerability), and positional weight (favoring corners, then edges).
+ *  Since Board maintains all of these as it changes, evaluation takes
+ *  constant time.
+ *  @author Melody Ma
+ */
+class CriticalMassEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(Board b) {
+        return SQUARE_WEIGHT * (b.numOfSide(RED) - b.numOfSide(BLUE))
+            + SPOT_WEIGHT * (b.spotsOf(RED) - b.spotsOf(BLUE))
+            + CRITICAL_WEIGHT * (b.numCritical(RED) - b.numCritical(BLUE))
+            + THREAT_WEIGHT * (b.numThreats(RED) - b.numThreats(BLUE))
+            + POSITION_WEIGHT
+              * (b.positionWeight(RED) - b.positionWeight(BLUE));
+    }
+
+    /** Weights of the terms. */
+    private static final int
+        SQUARE_WEIGHT = 10,
+        SPOT_WEIGHT = 1,
+        CRITICAL_WEIGHT = 3,
+        THREAT_WEIGHT = 4,
+        POSITION_WEIGHT = 2;
+}
@@ -14,4 +14,52 @@ class Defaults {
     /** Maximum number of squares on the side of a game board. */
     static final int MAX_BOARD_SIZE = 10;
 
+    /** Depth of AI searches when no time or node budget is set. */
+    static final int SEARCH_DEPTH = 4;
+
+    /** Maximum depth of budgeted AI searches. */
+    static final int MAX_SEARCH_DEPTH = 64;
+
+    /** Greatest number of plies by which the AI's quiescence search may
+     *  extend a search. */
+    static final int QUIESCENCE_PLIES = 8;
+
+    /** Greatest number of moves made by one quiescence search. */
+    static final int QUIESCENCE_NODES = 32;
+
+    /** Log base 2 of the number of buckets in an AI's transposition
+     *  table. */
+    static final int TABLE_BITS = 18;
+
+    /** Number of playouts per move of a Monte Carlo player with no time
+     *  or playout budget. */
+    static final int MCTS_PLAYOUTS = 20000;
+
+    /** Capacity in nodes of a Monte Carlo player's search tree. */
+    static final int MCTS_NODES = 1 << 19;
+
+    /** On boards with at most this many squares on a side, the AI's
+     *  exact solver is tried once at most SOLVER_EMPTY_SQUARES squares
+     *  are unclaimed. */
+    static final int SOLVER_MAX_SIZE = 4;
+
+    /** See SOLVER_MAX_SIZE. */
+    static final int SOLVER_EMPTY_SQUARES = 4;
+
+    /** Once every square is claimed, the AI's exact solver is tried
+     *  when the opponent owns at most this many squares. */
+    static final int SOLVER_LATE_SQUARES = 4;
+
+    /** Longest forced win, in plies, sought by the exact solver. */
+    static final int SOLVER_PLIES = 15;
+
+    /** Limit on positions visited by the exact solver per move. */
+    static final int SOLVER_NODES = 20_000;
+
+    /** Log base 2 of the number of buckets in the exact solver's cache. */
+    static final int SOLVER_TABLE_BITS = 16;
+
+    /** Largest size of board covered by a generated tablebase. */
+    static final int TABLEBASE_MAX_SIZE = 3;
+
 }
@@ -57,6 +57,11 @@ class Display extends TopLevel implements View, CommandSource, Reporter {
         }
     }
 
+    @Override
+    public String pollCommand() {
+        return _commandQueue.poll();
+    }
+
     @Override
     public void announceWin(Side side) {
         showMessage(String.format("%s wins!", side.toCapitalizedString()),
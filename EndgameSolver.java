@@ -0,0 +1,164 @@
+package jump61;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static jump61.TranspositionTable.*;
+
+/** An exact solver for small boards and late positions.  Rather than
+ *  estimating values, it decides whether the player to move can force a
+ *  win within a given number of plies, by an AND/OR search (alpha-beta
+ *  search with the null window between a loss and a win).  A win it
+ *  finds is guaranteed regardless of the opponent's replies.  Results
+ *  are cached, from one call to the next, in a transposition table: an
+ *  entry of value 1 and depth D means "wins within D plies", and an entry
+ *  of value 0 and depth D means "cannot force a win within D plies".
+ *  @author Melody Ma
+ */
+class EndgameSolver {
+
+    /** A solver whose cache has 2**LOGSIZE buckets. */
+    EndgameSolver(int logSize) {
+        _table = new TranspositionTable(logSize);
+    }
+
+    /** Return a move with which the player to move on BOARD can force a
+     *  win within MAXPLIES plies, or -1 if there is none or if the search
+     *  is abandoned, which it is when STOP becomes true, after visiting
+     *  NODELIMIT positions, or when System.nanoTime() passes DEADLINE
+     *  (if non-zero).  Searches for progressively longer wins, so that
+     *  the win found is one of the shortest.  Assumes the game is not
+     *  over. */
+    int solve(Board board, int maxPlies, AtomicBoolean stop,
+              long nodeLimit, long deadline) {
+        _nodes = 0;
+        _stop = stop;
+        _nodeLimit = nodeLimit;
+        _deadline = deadline;
+        _aborted = false;
+        int numSquares = board.size() * board.size();
+        if (_moves == null || _moves.length <= maxPlies
+            || _moves[0].length < numSquares) {
+            _moves = new int[maxPlies + 1][numSquares];
+        }
+        for (int plies = 1; plies <= maxPlies; plies += 2) {
+            if (wins(board, plies)) {
+                return move(_table.probe(board.zobristKey()));
+            } else if (_aborted) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /** Forget all cached results. */
+    void clear() {
+        _table.clear();
+    }
+
+    /** Return the number of positions visited by the last call to
+     *  solve. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return true iff the player to move on BOARD can force a win within
+     *  PLIES plies, recording the winning move in my table.  Returns
+     *  false if the search is abandoned.  Assumes the game is not over. */
+    private boolean wins(Board board, int plies) {
+        long key = board.zobristKey();
+        long entry = _table.probe(key);
+        if (entry != 0) {
+            if (value(entry) == 1 && depth(entry) <= plies) {
+                return true;
+            } else if (value(entry) == 0 && depth(entry) >= plies) {
+                return false;
+            }
+        }
+        if (outOfBudget()) {
+            return false;
+        }
+        Side player = board.whoseMove();
+        NeighborTable nbrs = board.neighborTable();
+        int[] moves = _moves[plies];
+        int numMoves = board.legalMoves(player, moves);
+        for (int pass = 0; pass < 2; pass += 1) {
+            for (int k = 0; k < numMoves; k += 1) {
+                int i = moves[k];
+                Square sq = board.get(i);
+                if ((sq.getSpots() == nbrs.degree(i)
+                     && sq.getSide() == player) != (pass == 0)) {
+                    continue;
+                }
+                board.addSpot(player, i);
+                boolean win = board.getWinner() == player
+                    || (plies > 2 && !opponentEscapes(board, plies - 1));
+                board.undo();
+                if (win) {
+                    _table.store(key, plies, EXACT, 1, i);
+                    return true;
+                } else if (_aborted) {
+                    return false;
+                }
+            }
+        }
+        _table.store(key, plies, EXACT, 0, -1);
+        return false;
+    }
+
+    /** Return true iff the player to move on BOARD has some move after
+     *  which the opponent cannot force a win within PLIES - 1 plies,
+     *  or if the search is abandoned.  Assumes the game is not over. */
+    private boolean opponentEscapes(Board board, int plies) {
+        if (outOfBudget()) {
+            return true;
+        }
+        Side player = board.whoseMove();
+        int[] moves = _moves[plies];
+        int numMoves = board.legalMoves(player, moves);
+        for (int k = 0; k < numMoves; k += 1) {
+            board.addSpot(player, moves[k]);
+            boolean escapes = board.getWinner() == player
+                || !wins(board, plies - 1);
+            board.undo();
+            if (escapes || _aborted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Count one more position visited, and return true iff the search
+     *  should be abandoned. */
+    private boolean outOfBudget() {
+        _nodes += 1;
+        if (_stop.get() || (_nodeLimit > 0 && _nodes > _nodeLimit)
+            || (_deadline != 0 && (_nodes & Searcher.CLOCK_INTERVAL) == 0
+                && System.nanoTime() > _deadline)) {
+            _aborted = true;
+        }
+        return _aborted;
+    }
+
+    /** Cache of proven results. */
+    private final TranspositionTable _table;
+
+    /** Number of positions visited by the current search. */
+    private long _nodes;
+
+    /** Set to true to abandon the current search. */
+    private AtomicBoolean _stop;
+
+    /** Limit on _nodes, or 0 if none. */
+    private long _nodeLimit;
+
+    /** Value of System.nanoTime() at which to abandon the search, or 0 if
+     *  none. */
+    private long _deadline;
+
+    /** True iff the current search has been abandoned. */
+    private boolean _aborted;
+
+    /** _moves[P] holds the legal moves being tried when P plies
+     *  remain. */
+    private int[][] _moves;
+}
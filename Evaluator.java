@@ -0,0 +1,18 @@
+package jump61;
+
+import static jump61.Side.*;
+
+/** A static evaluation function for positions searched by an AI.
+ *  @author Melody Ma
+ */
+interface Evaluator {
+
+    /** Return a heuristic estimate of the value of position B, which is
+     *  not won: positive if good for RED, negative if good for BLUE, and
+     *  always of magnitude less than AI.WIN_NUM. */
+    int evaluate(Board b);
+
+    /** An Evaluator that counts only the difference in squares owned. */
+    Evaluator MATERIAL = (b) -> b.numOfSide(RED) - b.numOfSide(BLUE);
+
+}
@@ -1,5 +1,18 @@
 package jump61;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import static jump61.Side.*;
 import static jump61.GameException.error;
 import static jump61.Utils.*;
@@ -12,13 +25,25 @@ class Game {
     /** Name of resource containing help message. */
     private static final String HELP = "jump61/Help.txt";
 
+    /** Commands that only report on the game.  They may be executed
+     *  while an automated player chooses its move, without cancelling
+     *  its search. */
+    private static final List<String> READ_ONLY_COMMANDS =
+        Arrays.asList("#", "", "board", "dump", "help", "quiet", "stats",
+                      "verbose");
+
     /** A list of all commands. */
     private static final String[] COMMAND_NAMES = {
-        "auto", "board", "clear", "dump", "help", "manual",
-        "new", "q", "quiet", "quit",
-        "seed", "set", "size", "start", "verbose",
+        "auto", "board", "budget", "clear", "dump", "help", "manual",
+        "new", "ponder", "q", "quiet", "quit",
+        "seed", "set", "size", "start", "stats", "threads", "verbose",
     };
 
+    /** Abbreviations that are kept for commands whose prefixes later
+     *  commands came to share, mapped to the commands they denote. */
+    private static final Map<String, String> ABBREVIATIONS =
+        Map.of("b", "board", "st", "start");
+
     /** A new Game that takes command/move input from INP, logs
      *  commands if LOGGING, displays the board using VIEW, and uses REPORTER
      *  for messages to the user and error messages. SEED is intended to
@@ -64,8 +89,11 @@ class Game {
             _view.update(_board);
             if (_board.getWinner() == null) {
                 winnerAnnounced = false;
+                if (_ponder) {
+                    getPlayer(_board.whoseMove().opposite()).ponder();
+                }
                 try {
-                    executeCommand(getPlayer(_board.whoseMove()).getMove());
+                    executeCommand(getMove());
                 } catch (GameException e) {
                     reportError(e.getMessage());
                 }
@@ -77,6 +105,7 @@ class Game {
                 executeCommand(getCommand());
             }
         }
+        stopPondering();
         return _exit;
     }
 
@@ -89,8 +118,83 @@ class Game {
         }
     }
 
-    /** Return a command from the current source. */
+    /** Return the next move or command for the player to move.  An
+     *  automated player chooses its move in the background, while any
+     *  commands available from my input source without waiting (see
+     *  CommandSource.pollCommand) are taken.  Moves taken meanwhile are
+     *  set aside for getCommand to return later, in order.  Commands
+     *  that only report on the game (see READ_ONLY_COMMANDS) are
+     *  executed at once, without disturbing the choice.  Any other
+     *  command cancels the choice at once and is returned instead, and
+     *  the player then starts afresh if it is still to move. */
+    private String getMove() {
+        Player player = getPlayer(_board.whoseMove());
+        CompletableFuture<Integer> choice =
+            player.findMoveAsync(_board, 0);
+        if (choice == null) {
+            return player.getMove();
+        }
+        while (true) {
+            String cmnd = _inp.pollCommand();
+            if (cmnd != null && cmnd.trim().matches("\\d.*")) {
+                _deferred.add(cmnd);
+            } else if (cmnd != null && isReadOnly(cmnd)) {
+                executeCommand(cmnd);
+            } else if (cmnd != null) {
+                choice.cancel(true);
+                return cmnd;
+            }
+            try {
+                return chosenMove(choice.get(POLL_INTERVAL,
+                                             TimeUnit.MILLISECONDS));
+            } catch (TimeoutException excp) {
+                continue;
+            } catch (InterruptedException excp) {
+                throw new Error("unexpected interrupt");
+            } catch (ExecutionException excp) {
+                Throwable cause = excp.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+
+    /** Return true iff CMND is a command that only reports on the game,
+     *  and so may be executed while an automated player is choosing its
+     *  move. */
+    private boolean isReadOnly(String cmnd) {
+        String[] parts = cmnd.trim().toLowerCase().split("\\s+");
+        try {
+            return READ_ONLY_COMMANDS.contains(canonicalizeCommand(parts[0]));
+        } catch (GameException excp) {
+            return false;
+        }
+    }
+
+    /** Announce MOVE (a square number), chosen by the automated player to
+     *  move, and return it as a move command.  A MOVE that is not legal
+     *  is an internal error in the player.  Assumes the game is not
+     *  over. */
+    String chosenMove(int move) {
+        Side player = _board.whoseMove();
+        if (move < 0 || move >= _board.size() * _board.size()
+            || !_board.isLegal(player, move)) {
+            throw new Error(String.format("%s player chose invalid move %d",
+                                          player.toCapitalizedString(),
+                                          move));
+        }
+        reportMove(_board.row(move), _board.col(move));
+        return String.format("%d %d", _board.row(move), _board.col(move));
+    }
+
+    /** Return a command from the current source, or one set aside by
+     *  getMove. */
     String getCommand() {
+        if (!_deferred.isEmpty()) {
+            return _deferred.remove();
+        }
         String cmnd = _inp.getCommand(prompt());
         if (cmnd == null) {
             return "quit";
@@ -147,28 +251,62 @@ class Game {
 
     /** Make the player of COLOR an AI for subsequent moves. */
     private void setAuto(Side color) {
-        setPlayer(color, new AI(this, color, _seed));
+        setAuto(color, "minimax");
+    }
+
+    /** Make the player of COLOR an automated player for subsequent moves,
+     *  using ENGINE ("minimax", "mcts", or "mcts-root") to choose moves. */
+    private void setAuto(Side color, String engine) {
+        setPlayer(color, automatedPlayer(this, color, _seed, engine));
+        getPlayer(color).setBudget(_timeBudget, _nodeBudget);
+        getPlayer(color).setThreads(_threads);
+        getPlayer(color).setOpeningBook(_book);
+        getPlayer(color).setTablebase(_tablebase);
+        registerStats(color);
         _seed += 1;
     }
 
+    /** Return a new automated player of GAME initially COLOR, using
+     *  ENGINE ("minimax", "mcts", or "mcts-root") to choose moves, with
+     *  random-number seed SEED.  GAME may be null for a player that is
+     *  only asked to findMove. */
+    static Player automatedPlayer(Game game, Side color, long seed,
+                                  String engine) {
+        switch (engine) {
+        case "minimax":
+            return new AI(game, color, seed);
+        case "mcts":
+            return new MCTSPlayer(game, color, seed, true);
+        case "mcts-root":
+            return new MCTSPlayer(game, color, seed, false);
+        default:
+            throw error("unknown engine: %s", engine);
+        }
+    }
+
     /** Make the player of COLOR take manual input from the user for
      *  subsequent moves. */
     private void setManual(Side color) {
         setPlayer(color, new HumanPlayer(this, color));
+        registerStats(color);
     }
 
     /** Return the Player playing COLOR. */
-    private Player getPlayer(Side color) {
+    Player getPlayer(Side color) {
         return _players[color.ordinal()];
     }
 
     /** Set getPlayer(COLOR) to PLAYER. */
-    private void setPlayer(Side color, Player player) {
+    void setPlayer(Side color, Player player) {
+        if (getPlayer(color) != null) {
+            getPlayer(color).dispose();
+        }
         _players[color.ordinal()] = player;
     }
 
     /** Clear the board to its initial state. */
     void clear() {
+        stopPondering();
         _board.clear(_board.size());
     }
 
@@ -182,11 +320,115 @@ class Game {
         _reporter.msg(_board.toDisplayString());
     }
 
+    /** Print the statistics kept by each player about its last move. */
+    private void printStats() {
+        for (Side color : new Side[] { RED, BLUE }) {
+            Player player = getPlayer(color);
+            SearchStats stats = player == null ? null : player.getStats();
+            _reporter.msg("%s: %s", color.toCapitalizedString(),
+                          stats == null ? "no statistics" : stats);
+        }
+    }
+
+    /** Make the statistics kept by the player of COLOR, if any,
+     *  available through JMX under the name jump61:type=AI,side=COLOR,
+     *  replacing those of any previous player of COLOR. */
+    private void registerStats(Side color) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name =
+                new ObjectName("jump61:type=AI,side="
+                               + color.toCapitalizedString());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            SearchStats stats = getPlayer(color).getStats();
+            if (stats != null) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException excp) {
+            debug(1, "could not register statistics: %s",
+                  excp.getMessage());
+        }
+    }
+
     /** Print a help message. */
     private void help() {
         printHelpResource(HELP, System.out);
     }
 
+    /** Limit automated players to about MILLIS milliseconds and NODES
+     *  searched positions per move, where 0 means no limit.  With neither
+     *  limit, they search to a fixed depth. */
+    void setBudget(long millis, long nodes) {
+        if (millis < 0 || nodes < 0) {
+            throw error("budget must not be negative");
+        }
+        _timeBudget = millis;
+        _nodeBudget = nodes;
+        for (Player player : _players) {
+            if (player != null) {
+                player.setBudget(millis, nodes);
+            }
+        }
+    }
+
+    /** Let automated players search with up to N threads.  With one
+     *  thread, an automated player's choices depend only on its seed and
+     *  budget. */
+    void setThreads(int n) {
+        if (n < 1) {
+            throw error("number of threads must be positive");
+        }
+        _threads = n;
+        for (Player player : _players) {
+            if (player != null) {
+                player.setThreads(n);
+            }
+        }
+    }
+
+    /** Have automated players take moves from BOOK (if not null) when it
+     *  covers the current position. */
+    void setOpeningBook(OpeningBook book) {
+        _book = book;
+        for (Player player : _players) {
+            if (player != null) {
+                player.setOpeningBook(book);
+            }
+        }
+    }
+
+    /** Have automated players take moves from TABLEBASE (if not null)
+     *  when it covers the current position. */
+    void setTablebase(Tablebase tablebase) {
+        _tablebase = tablebase;
+        for (Player player : _players) {
+            if (player != null) {
+                player.setTablebase(tablebase);
+            }
+        }
+    }
+
+    /** Have automated players think about their next moves during their
+     *  opponents' turns iff ON. */
+    private void setPonder(boolean on) {
+        _ponder = on;
+        if (!on) {
+            stopPondering();
+        }
+    }
+
+    /** Stop any pondering by the players, as when the position changes
+     *  other than by a move. */
+    private void stopPondering() {
+        for (Player player : _players) {
+            if (player != null) {
+                player.stopPondering();
+            }
+        }
+    }
+
     /** Seed the random-number generator with SEED. */
     private void setSeed(long seed) {
         _seed = seed;
@@ -199,6 +441,7 @@ class Game {
     private void setSpots(int r, int c, int spots, String color) {
         if (_board.exists(r, c) && spots >= 0
             && spots <= _board.neighbors(r, c)) {
+            stopPondering();
             _board.set(r, c, spots, toSide(color));
         } else {
             throw error("invalid request to put %d spots on square %d %d",
@@ -213,18 +456,22 @@ class Game {
         if (n < 2 || n > 10) {
             throw error("size must be between 2 and 10");
         }
+        stopPondering();
         _board.clear(n);
     }
 
     /** Return the full, lower-case command name that uniquely fits
      *  COMMAND.  COMMAND may be any prefix of a valid command name,
-     *  as long as that name is unique.  If the name is not unique or
-     *  no command name matches, returns COMMAND in lower case. */
+     *  as long as that name is unique, or one of the ABBREVIATIONS.  If
+     *  the name is not unique or no command name matches, returns
+     *  COMMAND in lower case. */
     private String canonicalizeCommand(String command) {
         if (command.length() == 0) {
             return  "";
         } else if (command.startsWith("#")) {
             return "#";
+        } else if (ABBREVIATIONS.containsKey(command)) {
+            return ABBREVIATIONS.get(command);
         }
 
         String fullName;
@@ -257,11 +504,16 @@ class Game {
             case "#": case "":
                 break;
             case "auto":
-                setAuto(toSide(parts[1]));
+                setAuto(toSide(parts[1]),
+                        parts.length > 2 ? parts[2] : "minimax");
                 break;
             case "board":
                 printBoard();
                 break;
+            case "budget":
+                setBudget(toLong(parts[1]),
+                          parts.length > 2 ? toLong(parts[2]) : 0);
+                break;
             case "dump":
                 dump();
                 break;
@@ -274,6 +526,9 @@ class Game {
             case "new":
                 clear();
                 break;
+            case "ponder":
+                setPonder(parts.length < 2 || !parts[1].equals("off"));
+                break;
             case "quiet":
                 _verbose = false;
                 break;
@@ -290,6 +545,12 @@ class Game {
             case "size":
                 setSize(toInt(parts[1]));
                 break;
+            case "stats":
+                printStats();
+                break;
+            case "threads":
+                setThreads(toInt(parts[1]));
+                break;
             case "verbose":
                 _verbose = true;
                 break;
@@ -341,16 +602,40 @@ class Game {
 
     /** True iff we should print the board after each move. */
     private boolean _verbose;
+
+    /** True iff automated players should think on their opponents'
+     *  time. */
+    private boolean _ponder;
     /** Current pseudo-random number seed.  Provided as an argument to AIs
      *  that use a random element in their choices.  Incremented for each
      *  AI to which it is supplied.
      */
     private long _seed;
+    /** Per-move time limit for automated players in milliseconds, or 0
+     *  for none. */
+    private long _timeBudget;
+    /** Per-move limit on positions searched by automated players, or 0
+     *  for none. */
+    private long _nodeBudget;
+    /** Number of threads automated players may use. */
+    private int _threads = 1;
+    /** Opening book for automated players, or null if none. */
+    private OpeningBook _book;
+    /** Tablebase for automated players, or null if none. */
+    private Tablebase _tablebase;
     /** When set to a non-negative value, indicates that play should terminate
      *  at the earliest possible point, returning _exit.  When negative,
      *  indicates that the session is not over. */
     private int _exit;
 
+    /** Moves entered while an automated player was choosing its move,
+     *  oldest first. */
+    private final ArrayDeque<String> _deferred = new ArrayDeque<>();
+
+    /** Milliseconds between checks for commands while an automated
+     *  player chooses its move. */
+    private static final long POLL_INTERVAL = 20;
+
     /** Current players, indexed by color (RED, BLUE). */
     private final Player[] _players = new Player[Side.values().length];
 
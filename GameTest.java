@@ -0,0 +1,410 @@
+package jump61;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.Side.*;
+
+/** Unit tests of Games played against automated players that choose
+ *  their moves in the background.
+ *  @author Melody Ma
+ */
+public class GameTest {
+
+    @Test
+    public void testReadOnlyCommands() {
+        Script script = new Script();
+        StubPlayer red = script.install(RED, false);
+        script.poll("board", "stats", "dump", red.release());
+        script.game().play();
+        assertEquals("search restarted", 0, red.cancelled.get());
+        assertTrue("board not dumped", script.messages().contains("==="));
+    }
+
+    @Test
+    public void testStateChangingCommands() {
+        Script script = new Script();
+        StubPlayer red = script.install(RED, false);
+        script.poll("seed 5", "budget 0 0", red.release());
+        script.game().play();
+        assertEquals("search not restarted", 2, red.cancelled.get());
+    }
+
+    @Test
+    public void testPromptCancel() {
+        Script script = new Script();
+        Game game = script.game();
+        script.commands((Runnable) () -> {
+            Player red = Game.automatedPlayer(game, RED, 1, "minimax");
+            red.setBudget(LONG_MILLIS, 0);
+            game.setPlayer(RED, red);
+        }, "#");
+        long[] start = new long[1];
+        script.poll(null, null, (Runnable) () -> start[0] = System.nanoTime(),
+                    "quit");
+        assertEquals("bad exit", 0, game.play());
+        long millis = (System.nanoTime() - start[0]) / 1_000_000;
+        assertTrue("cancel took " + millis + " ms", millis < PROMPT_MILLIS);
+    }
+
+    @Test
+    public void testDeferredMoves() {
+        Script script = new Script();
+        StubPlayer red = script.install(RED, false);
+        script.poll("2 2", "board", "3 3", "quit");
+        Game game = script.game();
+        game.play();
+        assertEquals("search not cancelled", 1, red.cancelled.get());
+        assertEquals("wrong order", "2 2", game.getCommand());
+        assertEquals("wrong order", "3 3", game.getCommand());
+        assertEquals("extra moves", "quit", game.getCommand());
+    }
+
+    @Test
+    public void testCancelledMove() throws Exception {
+        Player ai = Game.automatedPlayer(null, RED, 1, "minimax");
+        ai.setBudget(LONG_MILLIS, 0);
+        CompletableFuture<Integer> move = ai.findMoveAsync(new Board(6), 0);
+        AtomicBoolean completed = new AtomicBoolean();
+        move.thenAccept((m) -> completed.set(true));
+        Thread.sleep(SHORT_MILLIS);
+        long start = System.nanoTime();
+        assertTrue("not cancelled", move.cancel(true));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("cancel took " + millis + " ms", millis < PROMPT_MILLIS);
+        Thread.sleep(SHORT_MILLIS);
+        assertTrue("not cancelled", move.isCancelled());
+        assertFalse("cancelled move completed", completed.get());
+        try {
+            move.get();
+            fail("cancelled move has a value");
+        } catch (CancellationException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        Board board = new Board(6);
+        for (String engine : new String[] { "minimax", "mcts" }) {
+            Player player = Game.automatedPlayer(null, RED, 1, engine);
+            player.setBudget(LONG_MILLIS, 0);
+            long start = System.nanoTime();
+            int move = player.findMoveAsync(board, start + SHORT_MILLIS
+                                            * Searcher.NANOS_PER_MILLI)
+                .get(PROMPT_MILLIS + SHORT_MILLIS, TimeUnit.MILLISECONDS);
+            assertTrue(engine + ": illegal move", board.isLegal(RED, move));
+        }
+        Game game = new Script().game();
+        assertNull("human moves found",
+                   new HumanPlayer(game, RED).findMoveAsync(board, 0));
+    }
+
+    @Test
+    public void testInvalidMove() {
+        boolean rejected;
+        rejected = false;
+        try {
+            new Script().game().chosenMove(-1);
+        } catch (Error excp) {
+            rejected = true;
+        }
+        assertTrue("invalid move accepted", rejected);
+    }
+
+    @Test
+    public void testStatsBeans() {
+        Script script = new Script();
+        Game game = script.game();
+        ArrayList<String> checked = new ArrayList<>();
+        script.commands("budget 0 2000", "auto red", (Runnable) () -> {
+            try {
+                MBeanServer server =
+                    ManagementFactory.getPlatformMBeanServer();
+                for (Side color : new Side[] { RED, BLUE }) {
+                    ObjectName name =
+                        new ObjectName("jump61:type=AI,side="
+                                       + color.toCapitalizedString());
+                    SearchStats stats = game.getPlayer(color).getStats();
+                    assertTrue("no moves recorded", stats.getMoves() > 0);
+                    assertEquals("wrong source", stats.getSource(),
+                                 server.getAttribute(name, "Source"));
+                    assertEquals("wrong moves", stats.getMoves(),
+                                 server.getAttribute(name, "Moves"));
+                    assertEquals("wrong nodes", stats.getNodes(),
+                                 server.getAttribute(name, "Nodes"));
+                    assertEquals("wrong total", stats.getTotalNodes(),
+                                 server.getAttribute(name, "TotalNodes"));
+                    checked.add(color.toString());
+                }
+            } catch (JMException excp) {
+                fail(excp.getMessage());
+            }
+        }, "quit");
+        game.play();
+        assertEquals("not all players checked", 2, checked.size());
+    }
+
+    @Test
+    public void testAbbreviations() {
+        Script script = new Script();
+        script.commands("b", "st", "quit");
+        Game game = script.game();
+        game.play();
+        assertTrue("board not printed", script.messages()
+                   .contains(game.getBoard().toDisplayString()));
+        assertFalse("st is ambiguous",
+                    script.messages().contains("abbreviation"));
+    }
+
+    @Test
+    public void testPonderHit() throws Exception {
+        for (long nodes : new long[] { 0, PONDER_NODES }) {
+            Game game = new Script().game();
+            AI red = new AI(game, RED, 0);
+            red.setBudget(0, nodes);
+            game.setPlayer(RED, red);
+            Board board = game.getBoard();
+            board.clear(4);
+            game.makeMove(red.findMove(board));
+            red.ponder();
+            assertTrue("not pondering", red.pondering());
+            Thread.sleep(PONDER_MILLIS);
+            int reply = red.principalVariation()[1];
+            game.makeMove(reply);
+            int move = red.findMove(board);
+            assertEquals("ponder not used", "ponder",
+                         red.getStats().getSource());
+            assertFalse("still pondering", red.pondering());
+            assertTrue("illegal move", board.isLegal(RED, move));
+        }
+    }
+
+    @Test
+    public void testPonderMiss() throws Exception {
+        Game game = new Script().game();
+        AI red = new AI(game, RED, 0);
+        game.setPlayer(RED, red);
+        Board board = game.getBoard();
+        board.clear(4);
+        game.makeMove(red.findMove(board));
+        red.ponder();
+        assertTrue("not pondering", red.pondering());
+        int reply = red.principalVariation()[1];
+        int other;
+        for (other = 0; other == reply || !board.isLegal(BLUE, other);
+             other += 1) {
+            continue;
+        }
+        game.makeMove(other);
+        int move = red.findMove(board);
+        assertEquals("ponder used", "search", red.getStats().getSource());
+        assertFalse("still pondering", red.pondering());
+        assertTrue("illegal move", board.isLegal(RED, move));
+    }
+
+    @Test
+    public void testPonderStopped() {
+        Script script = new Script();
+        Game game = script.game();
+        AI red = new AI(game, RED, 0);
+        red.setBudget(0, PONDER_NODES);
+        ArrayList<Boolean> stopped = new ArrayList<>();
+        AtomicBoolean armed = new AtomicBoolean();
+        Runnable arm = () -> {
+            assertTrue("not pondering", red.pondering());
+            armed.set(true);
+        };
+        script.view(() -> {
+            if (armed.getAndSet(false)) {
+                stopped.add(!red.pondering());
+            }
+        });
+        script.commands("ponder", (Runnable) () -> {
+            game.setPlayer(RED, red);
+            game.setPlayer(BLUE, new HumanPlayer(game, BLUE));
+        }, "#", arm, "size 4", arm, "new", arm, "set 1 1 1 r", "quit");
+        game.play();
+        assertEquals("pondering not stopped",
+                     Arrays.asList(true, true, true), stopped);
+        assertFalse("still pondering", red.pondering());
+    }
+
+    /** A long time budget, in milliseconds. */
+    private static final long LONG_MILLIS = 60_000;
+
+    /** Time in milliseconds within which cancellation must take effect. */
+    private static final long PROMPT_MILLIS = 1000;
+
+    /** A short wait, in milliseconds. */
+    private static final long SHORT_MILLIS = 100;
+
+    /** Time in milliseconds given to pondering. */
+    private static final long PONDER_MILLIS = 500;
+
+    /** A node budget that PONDER_MILLIS of pondering easily exceeds. */
+    private static final long PONDER_NODES = 2000;
+
+    /** An automated Player whose moves (the first legal square) take
+     *  until it is released or stopped. */
+    private static class StubPlayer extends Player {
+
+        /** A player of GAME playing COLOR, initially released iff
+         *  RELEASED. */
+        StubPlayer(Game game, Side color, boolean released) {
+            super(game, color);
+            _released = released;
+        }
+
+        @Override
+        int findMove(Board board, AtomicBoolean stop, long deadline) {
+            while (!_released) {
+                if (stop.get()) {
+                    cancelled.incrementAndGet();
+                    return -1;
+                }
+                LockSupport.parkNanos(Searcher.NANOS_PER_MILLI);
+            }
+            int move;
+            for (move = 0; !board.isLegal(board.whoseMove(), move);
+                 move += 1) {
+                continue;
+            }
+            return move;
+        }
+
+        /** Return an action that releases me. */
+        Runnable release() {
+            return () -> _released = true;
+        }
+
+        /** Number of my searches that were stopped. */
+        final AtomicInteger cancelled = new AtomicInteger();
+
+        /** True iff my searches finish without waiting. */
+        private volatile boolean _released;
+    }
+
+    /** A CommandSource and Reporter for a Game, taking commands from
+     *  scripts.  Each script item is a command or a Runnable, which is
+     *  run when reached. */
+    private static class Script implements CommandSource, Reporter {
+
+        /** A script for a new Game on a 3x3 board. */
+        Script() {
+            _game = new Game(this, (b) -> _view.run(), this, false);
+            _commands.add("size 3");
+        }
+
+        /** Return my Game. */
+        Game game() {
+            return _game;
+        }
+
+        /** Add ITEMS to the script for getCommand. */
+        void commands(Object... items) {
+            _commands.addAll(Arrays.asList(items));
+        }
+
+        /** Add ITEMS to the script for pollCommand.  Null items are
+         *  polls with no command available. */
+        void poll(Object... items) {
+            _polls.addAll(Arrays.asList(items));
+        }
+
+        /** Have the first move of my Game, for COLOR, come from a new
+         *  StubPlayer, initially released iff RELEASED, with the other
+         *  side played by a released StubPlayer.  Returns the player of
+         *  COLOR. */
+        StubPlayer install(Side color, boolean released) {
+            StubPlayer result = new StubPlayer(_game, color, released);
+            commands((Runnable) () -> {
+                _game.setPlayer(color, result);
+                _game.setPlayer(color.opposite(),
+                                new StubPlayer(_game, color.opposite(),
+                                               true));
+            }, "#");
+            return result;
+        }
+
+        /** Run VIEW whenever my Game displays its board. */
+        void view(Runnable view) {
+            _view = view;
+        }
+
+        /** Return all messages reported, one per line. */
+        String messages() {
+            return _messages.toString();
+        }
+
+        @Override
+        public String getCommand(String prompt) {
+            return next(_commands);
+        }
+
+        @Override
+        public String pollCommand() {
+            return next(_polls);
+        }
+
+        /** Run any Runnables at the front of ITEMS, and then remove and
+         *  return the first command, or null if none. */
+        private String next(LinkedList<Object> items) {
+            while (!items.isEmpty()) {
+                Object item = items.remove();
+                if (item instanceof Runnable) {
+                    ((Runnable) item).run();
+                } else {
+                    return (String) item;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void announceWin(Side side) {
+        }
+
+        @Override
+        public void announceMove(int row, int col) {
+        }
+
+        @Override
+        public void msg(String format, Object... args) {
+            _messages.add(String.format(format, args));
+        }
+
+        @Override
+        public void err(String format, Object... args) {
+            _messages.add(String.format(format, args));
+        }
+
+        /** The Game I drive. */
+        private final Game _game;
+
+        /** Script items for getCommand and pollCommand. */
+        private final LinkedList<Object> _commands = new LinkedList<>(),
+            _polls = new LinkedList<>();
+
+        /** Run when my Game displays its board. */
+        private Runnable _view = () -> { };
+
+        /** Messages reported. */
+        private final ArrayList<String> _messages = new ArrayList<>();
+    }
+
+}
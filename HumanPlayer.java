@@ -1,5 +1,6 @@
 package jump61;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -35,4 +36,9 @@ class HumanPlayer extends Player {
         }
     }
 
+    @Override
+    CompletableFuture<Integer> findMoveAsync(Board board, long deadline) {
+        return null;
+    }
+
 }
@@ -0,0 +1,207 @@
+package jump61;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static jump61.Utils.*;
+
+/** An automated Player that chooses moves by Monte Carlo tree search,
+ *  rather than minimax search as does AI.  With more than one thread,
+ *  it either grows one shared tree from all threads ("tree
+ *  parallelism") or grows a separate tree on each thread and adds up
+ *  the statistics for the moves at their roots ("root parallelism").
+ *  @author Melody Ma
+ */
+class MCTSPlayer extends Player {
+
+    /** A new player of GAME initially COLOR that chooses moves by Monte
+     *  Carlo tree search.  SEED provides a random-number seed used for
+     *  playouts.  If SHARED, multiple threads share a single tree;
+     *  otherwise each has its own. */
+    MCTSPlayer(Game game, Side color, long seed, boolean shared) {
+        super(game, color);
+        _random = new Random(seed);
+        _shared = shared;
+        _trees = new ArrayList<>();
+        _workers = new ArrayList<>();
+    }
+
+    @Override
+    void setBudget(long millis, long playouts) {
+        _timeLimit = millis;
+        _playoutLimit = playouts;
+    }
+
+    @Override
+    void setThreads(int threads) {
+        if (threads != _threads) {
+            _threads = threads;
+            _trees.clear();
+            _workers.clear();
+        }
+    }
+
+    @Override
+    void reset(Side color, long seed) {
+        super.reset(color, seed);
+        _random.setSeed(seed);
+        _workers.clear();
+    }
+
+    @Override
+    void dispose() {
+        super.dispose();
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+    }
+
+    /** Return a move for the player to move on BOARD, found by running
+     *  playouts until the budget is exhausted: _playoutLimit playouts
+     *  and _timeLimit milliseconds, where each limit applies only if
+     *  positive.  With neither, runs Defaults.MCTS_PLAYOUTS playouts.
+     *  Each tree gets at least one playout, which expands its root, so
+     *  that there is always a move to return.  STOP and DEADLINE are as
+     *  for Player.findMove.  Assumes the game is not over. */
+    @Override
+    int findMove(Board board, AtomicBoolean stop, long deadline) {
+        long playouts = _playoutLimit;
+        if (_timeLimit <= 0 && playouts <= 0) {
+            playouts = Defaults.MCTS_PLAYOUTS;
+        }
+        setUp();
+        long start = System.nanoTime();
+        long stopTime = _timeLimit > 0
+            ? earlier(deadline, start + _timeLimit * Searcher.NANOS_PER_MILLI)
+            : deadline;
+        Board root = new Board(board);
+        for (int i = 0; i < _trees.size(); i += 1) {
+            /* Worker #I works on tree #I. */
+            _trees.get(i).reset(root);
+            _workers.get(i).playout();
+        }
+        AtomicLong count = new AtomicLong(_trees.size());
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 1; i < _threads; i += 1) {
+            MCTSTree.Worker worker = _workers.get(i);
+            long limit = playouts;
+            tasks.add(pool().submit(() ->
+                run(worker, count, limit, stop, stopTime)));
+        }
+        run(_workers.get(0), count, playouts, stop, stopTime);
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        if (stop.get()) {
+            return -1;
+        }
+
+        double secs = (System.nanoTime() - start) / 1e9;
+        long n = count.get() - _threads;
+        debug(1, "%s: %d playouts in %.3f s (%.0f per second per thread)",
+              getSide(), n, secs, n / secs / _threads);
+        if (_trees.size() == 1) {
+            return _trees.get(0).bestMove();
+        }
+        long[] visits = new long[board.size() * board.size()];
+        for (MCTSTree tree : _trees) {
+            tree.addRootVisits(visits);
+        }
+        int best = -1;
+        for (int m = 0; m < visits.length; m += 1) {
+            if (visits[m] > 0 && (best == -1 || visits[m] > visits[best])) {
+                best = m;
+            }
+        }
+        return best;
+    }
+
+    /** Perform playouts with WORKER until the number of playouts started
+     *  by all threads, as counted in COUNT, reaches LIMIT (if positive),
+     *  until STOP becomes true, or until System.nanoTime() passes
+     *  DEADLINE (if non-zero).  COUNT ends up one more than the number
+     *  of playouts started by the threads calling run. */
+    private void run(MCTSTree.Worker worker, AtomicLong count, long limit,
+                     AtomicBoolean stop, long deadline) {
+        while (true) {
+            long n = count.getAndIncrement();
+            if (limit > 0 && n >= limit) {
+                break;
+            } else if (stop.get()) {
+                break;
+            } else if (deadline != 0 && (n & CLOCK_INTERVAL) == 0
+                       && System.nanoTime() > deadline) {
+                break;
+            }
+            worker.playout();
+        }
+    }
+
+    /** Make sure that I have a Worker for each thread and trees for them
+     *  to work on: one tree in all, or one per thread if not _shared.
+     *  Trees are kept when only the Workers have been discarded. */
+    private void setUp() {
+        if (!_workers.isEmpty()) {
+            return;
+        }
+        int numTrees = _shared ? 1 : _threads;
+        int capacity = Math.max(Defaults.MCTS_NODES / numTrees,
+                                MIN_TREE_NODES);
+        while (_trees.size() < numTrees) {
+            _trees.add(new MCTSTree(capacity));
+        }
+        for (int i = 0; i < _threads; i += 1) {
+            MCTSTree tree = _trees.get(i % numTrees);
+            _workers.add(tree.new Worker(new Random(_random.nextLong())));
+        }
+    }
+
+    /** Return a pool of threads for Workers other than the first,
+     *  (re)creating it if the number of threads has changed. */
+    private ForkJoinPool pool() {
+        if (_pool == null || _pool.getParallelism() != _threads - 1) {
+            if (_pool != null) {
+                _pool.shutdown();
+            }
+            _pool = new ForkJoinPool(_threads - 1);
+        }
+        return _pool;
+    }
+
+    /** The clock is consulted once every CLOCK_INTERVAL + 1 playouts. */
+    private static final int CLOCK_INTERVAL = 63;
+
+    /** Smallest capacity of each of several trees. */
+    private static final int MIN_TREE_NODES = 1 << 16;
+
+    /** Source of seeds for my Workers. */
+    private final Random _random;
+
+    /** True iff all threads share one tree. */
+    private final boolean _shared;
+
+    /** The search trees. */
+    private final ArrayList<MCTSTree> _trees;
+
+    /** One Worker for each thread, the first run on the calling
+     *  thread. */
+    private final ArrayList<MCTSTree.Worker> _workers;
+
+    /** Threads for Workers after the first, or null if not yet
+     *  needed. */
+    private ForkJoinPool _pool;
+
+    /** Number of threads to search with. */
+    private int _threads = 1;
+
+    /** Per-move time budget in milliseconds, or 0 if none. */
+    private long _timeLimit;
+
+    /** Per-move budget of playouts, or 0 if none. */
+    private long _playoutLimit;
+
+}
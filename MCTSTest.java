@@ -0,0 +1,103 @@
+package jump61;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.Side.*;
+
+/** Unit tests of MCTSPlayers.
+ *  @author Melody Ma
+ */
+public class MCTSTest {
+
+    @Test
+    public void testShortBudget() {
+        for (String engine : ENGINES) {
+            Board board = openingBoard();
+            Player player = Game.automatedPlayer(null, RED, 1, engine);
+            player.setBudget(SHORT_MILLIS, 0);
+            player.setThreads(2);
+            int move = player.findMove(board);
+            assertTrue(engine + ": illegal move", board.isLegal(RED, move));
+            player.dispose();
+        }
+    }
+
+    @Test
+    public void testTinyBudget() {
+        long[][] budgets = { { 1, 0 }, { 0, 1 } };
+        for (String engine : ENGINES) {
+            for (int threads : new int[] { 1, 4 }) {
+                for (long[] budget : budgets) {
+                    Board board = new Board(6);
+                    Player player = Game.automatedPlayer(null, RED, 1, engine);
+                    player.setBudget(budget[0], budget[1]);
+                    player.setThreads(threads);
+                    int move = player.findMove(board);
+                    assertTrue(engine + ": illegal move",
+                               board.isLegal(RED, move));
+                    player.dispose();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReproducible() {
+        for (String engine : ENGINES) {
+            Board board = openingBoard();
+            int[] moves = new int[2];
+            for (int k = 0; k < moves.length; k += 1) {
+                Player player = Game.automatedPlayer(null, RED, SEED, engine);
+                player.setBudget(0, PLAYOUTS);
+                moves[k] = player.findMove(board);
+                player.dispose();
+            }
+            assertEquals(engine + ": different moves", moves[0], moves[1]);
+        }
+    }
+
+    @Test
+    public void testForcedWin() {
+        Board board = new Board(3);
+        for (int r = 1; r <= 3; r += 1) {
+            for (int c = 1; c <= 3; c += 1) {
+                board.set(r, c, 1, RED);
+            }
+        }
+        board.set(1, 1, 2, RED);
+        board.set(1, 2, 1, BLUE);
+        board.set(3, 3, 2, RED);
+        assertEquals("wrong side to move", RED, board.whoseMove());
+        for (String engine : ENGINES) {
+            Player player = Game.automatedPlayer(null, RED, SEED, engine);
+            player.setBudget(0, PLAYOUTS);
+            assertEquals(engine + ": missed win", board.sqNum(1, 1),
+                         player.findMove(board));
+            player.dispose();
+        }
+    }
+
+    /** Return a 6x6 board after a few opening moves. */
+    private static Board openingBoard() {
+        Board board = new Board(6);
+        board.addSpot(RED, 1, 1);
+        board.addSpot(BLUE, 3, 4);
+        board.addSpot(RED, 2, 2);
+        board.addSpot(BLUE, 6, 6);
+        return board;
+    }
+
+    /** The Monte Carlo engines. */
+    private static final String[] ENGINES = { "mcts", "mcts-root" };
+
+    /** A short time budget, in milliseconds. */
+    private static final long SHORT_MILLIS = 20;
+
+    /** A playout budget. */
+    private static final long PLAYOUTS = 2000;
+
+    /** A random seed. */
+    private static final long SEED = 61;
+
+}
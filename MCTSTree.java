@@ -0,0 +1,260 @@
+package jump61;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A game tree grown by Monte Carlo tree search with UCT selection.
+ *  To avoid allocating an object per node, nodes are numbered and their
+ *  fields kept in parallel primitive arrays of fixed capacity; node 0 is
+ *  the root.  The children of an expanded node are consecutively
+ *  numbered.
+ *
+ *  Playouts are performed by Workers, each with its own board and source
+ *  of random numbers.  Any number of Workers may grow the same tree at
+ *  once: visit and win counts are updated atomically, one Worker
+ *  expands each node, and a playout's visits are counted on the way
+ *  down, so that until its result arrives it counts as a loss ("virtual
+ *  loss") and other Workers are steered toward other lines.
+ *  @author Melody Ma
+ */
+class MCTSTree {
+
+    /** A tree with room for up to CAPACITY nodes. */
+    MCTSTree(int capacity) {
+        _move = new int[capacity];
+        _firstChild = new int[capacity];
+        _numChildren = new int[capacity];
+        _visits = new int[capacity];
+        _wins = new int[capacity];
+    }
+
+    /** Discard my contents and make the root the position on ROOT.  Must
+     *  not be called while any of my Workers is busy. */
+    void reset(Board root) {
+        _root = root;
+        _numNodes.set(1);
+        _move[0] = -1;
+        _numChildren[0] = UNEXPANDED;
+        _visits[0] = _wins[0] = 0;
+    }
+
+    /** Return the most-visited move from the root, or -1 if the root has
+     *  not been expanded. */
+    int bestMove() {
+        int n = numChildren(0);
+        if (n <= 0) {
+            return -1;
+        }
+        int best = _firstChild[0];
+        for (int c = best + 1; c < _firstChild[0] + n; c += 1) {
+            if (_visits[c] > _visits[best]) {
+                best = c;
+            }
+        }
+        return _move[best];
+    }
+
+    /** Add the number of visits to each child of the root to
+     *  COUNTS[M], where M is the move leading to the child. */
+    void addRootVisits(long[] counts) {
+        int first = _firstChild[0], n = numChildren(0);
+        for (int c = first; c < first + n; c += 1) {
+            counts[_move[c]] += _visits[c];
+        }
+    }
+
+    /** Performs playouts on one thread. */
+    class Worker {
+
+        /** A Worker whose random choices come from RANDOM. */
+        Worker(Random random) {
+            _random = random;
+            _path = new int[MAX_PATH];
+        }
+
+        /** Perform one iteration of search: descend from the root by UCT
+         *  selection to a leaf, expand it, play out the game at random
+         *  from there, and update the statistics along the path. */
+        void playout() {
+            if (_work == null || _work.size() != _root.size()) {
+                _work = new Board(_root.size());
+                _moves = new int[_root.size() * _root.size()];
+            }
+            Board board = _work;
+            board.copy(_root);
+            int node = 0, len = 0;
+            VISITS.getAndAdd(_visits, 0, 1);
+            _path[len++] = 0;
+            boolean expanded;
+            expanded = false;
+            while (!expanded && board.getWinner() == null
+                   && len < MAX_PATH) {
+                int n = numChildren(node);
+                if (n == UNEXPANDED) {
+                    if (!NUM_CHILDREN.compareAndSet(_numChildren, node,
+                                                    UNEXPANDED, EXPANDING)
+                        || !expand(node, board, _moves)) {
+                        break;
+                    }
+                    expanded = true;
+                    node = _firstChild[node]
+                        + _random.nextInt(_numChildren[node]);
+                } else if (n > 0) {
+                    node = select(node, n);
+                } else {
+                    break;
+                }
+                VISITS.getAndAdd(_visits, node, 1);
+                board.addSpot(board.whoseMove(), _move[node]);
+                _path[len++] = node;
+            }
+            Side winner = rollout(board);
+            Side mover = _root.whoseMove();
+            for (int k = 0; k < len; k += 1) {
+                if (winner == (k % 2 == 1 ? mover : mover.opposite())) {
+                    WINS.getAndAdd(_wins, _path[k], 1);
+                }
+            }
+        }
+
+        /** Return the child of NODE, which has N children, with the
+         *  highest UCT score.  Unvisited children are preferred. */
+        private int select(int node, int n) {
+            int first = _firstChild[node], end = first + n;
+            double logVisits = Math.log(Math.max(1, _visits[node]));
+            int best = first;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int c = first; c < end; c += 1) {
+                int visits = _visits[c];
+                if (visits == 0) {
+                    return c;
+                }
+                double score = (double) _wins[c] / visits
+                    + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        /** Play random moves on BOARD until the game ends or a move limit
+         *  is reached, and return the winner, or, if the limit was
+         *  reached, the side owning more squares (null if neither). */
+        private Side rollout(Board board) {
+            int numSquares = board.size() * board.size();
+            for (int moves = ROLLOUT_LIMIT * numSquares;
+                 moves > 0 && board.getWinner() == null; moves -= 1) {
+                Side player = board.whoseMove();
+                Side opponent = player.opposite();
+                int move;
+                do {
+                    move = _random.nextInt(numSquares);
+                } while (board.get(move).getSide() == opponent);
+                board.addSpot(player, move);
+            }
+            Side winner = board.getWinner();
+            if (winner == null) {
+                int diff =
+                    board.numOfSide(Side.RED) - board.numOfSide(Side.BLUE);
+                if (diff > 0) {
+                    winner = Side.RED;
+                } else if (diff < 0) {
+                    winner = Side.BLUE;
+                }
+            }
+            return winner;
+        }
+
+        /** Source of random choices in expansions and rollouts. */
+        private final Random _random;
+
+        /** Board on which playouts are made. */
+        private Board _work;
+
+        /** Nodes on the path of the current playout. */
+        private final int[] _path;
+
+        /** Scratch space for legal moves when expanding a node. */
+        private int[] _moves;
+    }
+
+    /** Create children of NODE, which the caller has marked EXPANDING,
+     *  for all legal moves on BOARD and publish them, using MOVES (with
+     *  room for every square) as scratch space.  If there is not
+     *  enough room left in the tree, instead marks NODE UNEXPANDED and
+     *  returns false. */
+    private boolean expand(int node, Board board, int[] moves) {
+        int n = board.legalMoves(board.whoseMove(), moves);
+        int first;
+        do {
+            first = _numNodes.get();
+            if (first + n > _move.length) {
+                NUM_CHILDREN.setRelease(_numChildren, node, UNEXPANDED);
+                return false;
+            }
+        } while (!_numNodes.compareAndSet(first, first + n));
+        for (int k = 0; k < n; k += 1) {
+            int c = first + k;
+            _move[c] = moves[k];
+            _numChildren[c] = UNEXPANDED;
+            _visits[c] = _wins[c] = 0;
+        }
+        _firstChild[node] = first;
+        NUM_CHILDREN.setRelease(_numChildren, node, n);
+        return true;
+    }
+
+    /** Return the number of children of NODE, or UNEXPANDED or EXPANDING.
+     *  Once positive, all the children's fields are visible. */
+    private int numChildren(int node) {
+        return (int) NUM_CHILDREN.getAcquire(_numChildren, node);
+    }
+
+    /** Values of _numChildren for a node not yet expanded and for one
+     *  being expanded. */
+    private static final int UNEXPANDED = -1, EXPANDING = -2;
+
+    /** Weight of the exploration term in UCT scores. */
+    private static final double EXPLORATION = Math.sqrt(2.0);
+
+    /** Longest path from the root followed by a playout before its
+     *  rollout. */
+    private static final int MAX_PATH = 512;
+
+    /** A rollout ends after ROLLOUT_LIMIT moves per square. */
+    private static final int ROLLOUT_LIMIT = 4;
+
+    /** Atomic access to elements of _numChildren, _visits, and _wins. */
+    private static final VarHandle
+        NUM_CHILDREN = MethodHandles.arrayElementVarHandle(int[].class),
+        VISITS = NUM_CHILDREN,
+        WINS = NUM_CHILDREN;
+
+    /** The position at the root. */
+    private Board _root;
+
+    /** Number of nodes allocated. */
+    private final AtomicInteger _numNodes = new AtomicInteger();
+
+    /** For each node, the move (square number) that leads to it from its
+     *  parent. */
+    private final int[] _move;
+
+    /** For each expanded node, the number of its first child. */
+    private final int[] _firstChild;
+
+    /** For each node, its number of children, UNEXPANDED, or
+     *  EXPANDING. */
+    private final int[] _numChildren;
+
+    /** For each node, the number of playouts through it. */
+    private final int[] _visits;
+
+    /** For each node, the number of playouts through it won by the
+     *  player who made its move. */
+    private final int[] _wins;
+}
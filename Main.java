@@ -24,7 +24,10 @@ public class Main {
     public static void main(String[] args0) {
         CommandArgs args =
             new CommandArgs("--display{0,1} --strict{0,1} --version{0,1}"
-                            + " --debug=(\\d+){0,1} --log --=(.*){0,}", args0);
+                            + " --debug=(\\d+){0,1} --budget=(\\d+){0,1}"
+                            + " --threads=(\\d+){0,1} --book=(.+){0,1}"
+                            + " --tablebase=(.+){0,1}"
+                            + " --log --=(.*){0,}", args0);
 
         if (!args.ok()) {
             usage();
@@ -41,11 +44,44 @@ public class Main {
         if (args.contains("--debug")) {
             Utils.setMessageLevel(args.getInt("--debug"));
         }
+        long budget = 0;
+        if (args.contains("--budget")) {
+            budget = args.getInt("--budget");
+        }
+        int threads = 1;
+        if (args.contains("--threads")) {
+            threads = args.getInt("--threads");
+        }
+        OpeningBook book = null;
+        if (args.contains("--book")) {
+            String name = args.get("--book").get(0);
+            try {
+                book = OpeningBook.load(name);
+                Utils.debug(1, "%s: %d book positions", name, book.size());
+            } catch (IOException excp) {
+                System.err.printf("Could not open %s%n", name);
+                System.exit(1);
+            }
+        }
+        Tablebase tablebase = null;
+        if (args.contains("--tablebase")) {
+            String name = args.get("--tablebase").get(0);
+            try {
+                tablebase = Tablebase.load(name);
+            } catch (IOException excp) {
+                System.err.printf("Could not open %s%n", name);
+                System.exit(1);
+            }
+        }
 
         Game game;
         if (args.contains("--display")) {
             Display display = new Display("Jump61");
             game = new Game(display, display, display, log);
+            game.setBudget(budget, 0);
+            game.setThreads(threads);
+            game.setOpeningBook(book);
+            game.setTablebase(tablebase);
             game.play();
         } else {
             TextSource source;
@@ -68,6 +104,10 @@ public class Main {
             }
             game = new Game(new TextSource(inReaders), (b) -> { },
                     new TextReporter(), log);
+            game.setBudget(budget, 0);
+            game.setThreads(threads);
+            game.setOpeningBook(book);
+            game.setTablebase(tablebase);
             System.exit(game.play());
         }
     }
@@ -0,0 +1,109 @@
+package jump61;
+
+import java.util.Arrays;
+
+/** The adjacency structure of an N x N Jump61 board, stored in
+ *  compressed-row form: the neighbors of square #S are
+ *  target(start(S)) through target(end(S) - 1).  Tables are immutable,
+ *  so one table per board size is shared by all Boards of that size.
+ *  @author Melody Ma
+ */
+final class NeighborTable {
+
+    /** A table for boards of N squares on a side.  Each square's
+     *  neighbors are listed in the order in which Board.jump has always
+     *  distributed spots to them. */
+    private NeighborTable(int N) {
+        _size = N;
+        _offsets = new int[N * N + 1];
+        _degree = new int[N * N];
+        int[] targets = new int[4 * N * N];
+        int k;
+        k = 0;
+        for (int S = 0; S < N * N; S += 1) {
+            _offsets[S] = k;
+            int r = S / N, c = S % N, last = N - 1;
+            if (r == 0) {
+                if (c > 0) {
+                    targets[k++] = S - 1;
+                }
+                if (c < last) {
+                    targets[k++] = S + 1;
+                }
+                targets[k++] = S + N;
+            } else if (r == last && (c == 0 || c == last)) {
+                targets[k++] = S - N;
+                targets[k++] = c == 0 ? S + 1 : S - 1;
+            } else if (r == last) {
+                targets[k++] = S + 1;
+                targets[k++] = S - 1;
+                targets[k++] = S - N;
+            } else if (c == 0 || c == last) {
+                targets[k++] = S - N;
+                targets[k++] = S + N;
+                targets[k++] = c == 0 ? S + 1 : S - 1;
+            } else {
+                targets[k++] = S - 1;
+                targets[k++] = S + 1;
+                targets[k++] = S + N;
+                targets[k++] = S - N;
+            }
+            _degree[S] = k - _offsets[S];
+        }
+        _offsets[N * N] = k;
+        _targets = Arrays.copyOf(targets, k);
+    }
+
+    /** Return the (shared) table for boards with N squares on a side. */
+    static NeighborTable forSize(int N) {
+        if (N >= 0 && N < TABLES.length && TABLES[N] != null) {
+            return TABLES[N];
+        }
+        return new NeighborTable(N);
+    }
+
+    /** Return the number of squares on a side of my boards. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the number of neighbors of square #S. */
+    int degree(int S) {
+        return _degree[S];
+    }
+
+    /** Return the index in my targets of the first neighbor of square #S. */
+    int start(int S) {
+        return _offsets[S];
+    }
+
+    /** Return the index in my targets just past the last neighbor of
+     *  square #S. */
+    int end(int S) {
+        return _offsets[S + 1];
+    }
+
+    /** Return neighbor #K in my targets. */
+    int target(int k) {
+        return _targets[k];
+    }
+
+    /** Tables for all legal board sizes, indexed by size. */
+    private static final NeighborTable[] TABLES =
+        new NeighborTable[Defaults.MAX_BOARD_SIZE + 1];
+
+    static {
+        for (int N = 2; N <= Defaults.MAX_BOARD_SIZE; N += 1) {
+            TABLES[N] = new NeighborTable(N);
+        }
+    }
+
+    /** Number of squares on a side. */
+    private final int _size;
+    /** Neighbors of square #S start at _targets[_offsets[S]]. */
+    private final int[] _offsets;
+    /** Concatenated neighbor lists of all squares. */
+    private final int[] _targets;
+    /** Number of neighbors of each square. */
+    private final int[] _degree;
+}
@@ -0,0 +1,159 @@
+package jump61;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** A table of precomputed moves for early positions, indexed by Board
+ *  Zobrist key.  The table lives in a file that is memory-mapped rather
+ *  than read, so that lookups need no heap and cost only a binary
+ *  search.  The file consists of the 4-byte MAGIC number, a 4-byte count
+ *  of entries, and then the entries in increasing order of key, each an
+ *  8-byte key followed by a 2-byte square number (all big-endian).
+ *
+ *  Running this class as a program generates a book file.
+ *  @author Melody Ma
+ */
+class OpeningBook {
+
+    /** A book whose contents are in the file named NAME. */
+    static OpeningBook load(String name) throws IOException {
+        try (FileChannel chan =
+             FileChannel.open(Paths.get(name), StandardOpenOption.READ)) {
+            ByteBuffer data = chan.map(FileChannel.MapMode.READ_ONLY,
+                                       0, chan.size());
+            if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC
+                || data.limit() != HEADER_SIZE
+                   + (long) data.getInt(4) * ENTRY_SIZE) {
+                throw new IOException("bad opening book: " + name);
+            }
+            return new OpeningBook(data);
+        }
+    }
+
+    /** A book whose (validated) file contents are DATA. */
+    private OpeningBook(ByteBuffer data) {
+        _data = data;
+        _size = data.getInt(4);
+    }
+
+    /** Return the book move for the player to move on BOARD, or -1 if
+     *  there is none. */
+    int move(Board board) {
+        long key = board.zobristKey();
+        int lo = 0, hi = _size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midKey = _data.getLong(HEADER_SIZE + mid * ENTRY_SIZE);
+            if (midKey < key) {
+                lo = mid + 1;
+            } else if (midKey > key) {
+                hi = mid - 1;
+            } else {
+                int move =
+                    _data.getShort(HEADER_SIZE + mid * ENTRY_SIZE + KEY_SIZE);
+                return board.isLegal(board.whoseMove(), move) ? move : -1;
+            }
+        }
+        return -1;
+    }
+
+    /** Return the number of positions in this book. */
+    int size() {
+        return _size;
+    }
+
+    /** Generate a book, writing it to the file named ARGS[0].  The book
+     *  covers all positions reachable in fewer than ARGS[1] (default 2)
+     *  moves from the start on boards of each size from 2 to
+     *  Defaults.MAX_BOARD_SIZE, each with the move found by a search of
+     *  ARGS[2] (default Defaults.SEARCH_DEPTH + 2) plies. */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: java jump61.OpeningBook FILE "
+                               + "[ PLIES [ DEPTH ] ]");
+            System.exit(1);
+        }
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int depth = args.length > 2 ? Integer.parseInt(args[2])
+            : Defaults.SEARCH_DEPTH + 2;
+        try {
+            write(args[0], Defaults.MAX_BOARD_SIZE, plies, depth);
+        } catch (IOException excp) {
+            System.err.printf("Could not write %s%n", args[0]);
+            System.exit(1);
+        }
+    }
+
+    /** Write a book to the file named NAME, covering all positions
+     *  reachable in fewer than PLIES moves from the start on boards of
+     *  each size from 2 to MAXSIZE, each with the move found by a search
+     *  of DEPTH plies. */
+    static void write(String name, int maxSize, int plies, int depth)
+        throws IOException {
+        TreeMap<Long, Integer> book = new TreeMap<>();
+        for (int N = 2; N <= maxSize; N += 1) {
+            TranspositionTable table =
+                new TranspositionTable(Defaults.TABLE_BITS);
+            Searcher searcher =
+                new Searcher(table, new CriticalMassEvaluator(), null);
+            int before = book.size();
+            generate(new Board(N), plies, depth, searcher, book);
+            Utils.debug(1, "size %d: %d positions", N, book.size() - before);
+        }
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(name)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(book.size());
+            for (Map.Entry<Long, Integer> entry : book.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeShort(entry.getValue());
+            }
+        }
+    }
+
+    /** Add entries to BOOK for BOARD and all positions reachable from it
+     *  in fewer than PLIES moves, using SEARCHER to search DEPTH plies
+     *  for each move. */
+    private static void generate(Board board, int plies, int depth,
+                                 Searcher searcher,
+                                 TreeMap<Long, Integer> book) {
+        if (plies <= 0 || board.getWinner() != null
+            || book.containsKey(board.zobristKey())) {
+            return;
+        }
+        int move = searcher.deepen(board, 1, depth,
+                                   new AtomicBoolean(false), 0, 0);
+        book.put(board.zobristKey(), move);
+        Side player = board.whoseMove();
+        for (int i = 0; i < board.size() * board.size(); i += 1) {
+            if (board.isLegal(player, i)) {
+                board.addSpot(player, i);
+                generate(board, plies - 1, depth, searcher, book);
+                board.undo();
+            }
+        }
+    }
+
+    /** Identifies book files ("J61B"). */
+    private static final int MAGIC = 0x4a363142;
+
+    /** Sizes in bytes of the file header, of a key, and of an entry. */
+    private static final int HEADER_SIZE = 8, KEY_SIZE = 8,
+        ENTRY_SIZE = KEY_SIZE + 2;
+
+    /** The mapped file. */
+    private final ByteBuffer _data;
+
+    /** Number of entries. */
+    private final int _size;
+}
@@ -0,0 +1,46 @@
+package jump61;
+
+import java.io.File;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.Side.*;
+
+/** Unit tests of OpeningBooks.
+ *  @author Melody Ma
+ */
+public class OpeningBookTest {
+
+    @Test
+    public void testBook() throws Exception {
+        File file = File.createTempFile("jump61", ".book");
+        file.deleteOnExit();
+        OpeningBook.write(file.getPath(), 3, 2, 2);
+        OpeningBook book = OpeningBook.load(file.getPath());
+        assertEquals("wrong number of positions", 1 + 4 + 1 + 9,
+                     book.size());
+        for (int n = 2; n <= 3; n += 1) {
+            Board board = new Board(n);
+            checkCovered(book, board);
+            for (int i = 0; i < n * n; i += 1) {
+                board.addSpot(RED, i);
+                checkCovered(book, board);
+                board.addSpot(BLUE, board.isLegal(BLUE, 0) ? 0 : 1);
+                assertEquals("move for uncovered position", -1,
+                             book.move(board));
+                board.undo();
+                board.undo();
+            }
+        }
+        assertEquals("move for uncovered size", -1, book.move(new Board(4)));
+    }
+
+    /** Check that BOOK has a legal move for BOARD. */
+    private static void checkCovered(OpeningBook book, Board board) {
+        int move = book.move(board);
+        assertTrue("no legal move for covered position",
+                   move != -1 && board.isLegal(board.whoseMove(), move));
+    }
+
+}
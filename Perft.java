@@ -0,0 +1,112 @@
+package jump61;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Counts of the positions reachable in a given number of moves
+ *  ("perft"), made by playing every sequence of legal moves with addSpot
+ *  and retracting them with undo.  The counts depend only on the rules,
+ *  so they check any change to how Boards make and undo moves, and
+ *  timing them measures the move/undo path on which searches spend most
+ *  of their time.
+ *  @author Melody Ma
+ */
+class Perft {
+
+    /** Print the number of leaves at a given depth below a given position,
+     *  with the time taken and the rate.  ARGS are [ --split ] DEPTH
+     *  [ SIZE [ MOVE ... ] ]: the depth, the board size (default
+     *  Defaults.BOARD_SIZE), and the moves, written R:C, that lead from
+     *  the start to the position.  With --split, also prints the count
+     *  below each move from the position. */
+    public static void main(String[] args) {
+        int a = 0;
+        boolean split = args.length > 0 && args[0].equals("--split");
+        if (split) {
+            a += 1;
+        }
+        if (args.length - a < 1) {
+            usage();
+        }
+        try {
+            int depth = Utils.toInt(args[a]);
+            int size = args.length - a > 1 ? Utils.toInt(args[a + 1])
+                : Defaults.BOARD_SIZE;
+            if (depth < 0 || size < 2 || size > Defaults.MAX_BOARD_SIZE) {
+                usage();
+            }
+            Board board = new Board(size);
+            for (int k = a + 2; k < args.length; k += 1) {
+                Matcher move = MOVE.matcher(args[k]);
+                if (!move.matches() || board.getWinner() != null
+                    || !board.isLegal(board.whoseMove(),
+                                      Utils.toInt(move.group(1)),
+                                      Utils.toInt(move.group(2)))) {
+                    System.err.printf("Illegal move: %s%n", args[k]);
+                    System.exit(1);
+                }
+                board.addSpot(board.whoseMove(), Utils.toInt(move.group(1)),
+                              Utils.toInt(move.group(2)));
+            }
+            run(new Board(board), depth, split);
+        } catch (NumberFormatException excp) {
+            usage();
+        }
+    }
+
+    /** Print the count of leaves DEPTH moves below BOARD, preceded by the
+     *  counts below each move from BOARD if SPLIT. */
+    private static void run(Board board, int depth, boolean split) {
+        long start = System.nanoTime();
+        long total;
+        if (split && depth > 0 && board.getWinner() == null) {
+            total = 0;
+            Side player = board.whoseMove();
+            for (int i = 0; i < board.size() * board.size(); i += 1) {
+                if (board.isLegal(player, i)) {
+                    board.addSpot(player, i);
+                    long count = count(board, depth - 1);
+                    board.undo();
+                    System.out.printf("%s: %d%n", board.moveString(i), count);
+                    total += count;
+                }
+            }
+        } else {
+            total = count(board, depth);
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Leaves at depth %d: %d%n", depth, total);
+        System.out.printf("%.3f s (%.0f leaves per second)%n", secs,
+                          total / secs);
+    }
+
+    /** Return the number of leaves DEPTH moves below BOARD, where the
+     *  leaves are the positions reached after exactly DEPTH moves and the
+     *  positions in which the game ends sooner.  Leaves BOARD as it
+     *  was. */
+    static long count(Board board, int depth) {
+        if (depth == 0 || board.getWinner() != null) {
+            return 1;
+        }
+        long result = 0;
+        Side player = board.whoseMove();
+        for (int i = 0; i < board.size() * board.size(); i += 1) {
+            if (board.isLegal(player, i)) {
+                board.addSpot(player, i);
+                result += count(board, depth - 1);
+                board.undo();
+            }
+        }
+        return result;
+    }
+
+    /** Print a usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java jump61.Perft [ --split ] DEPTH "
+                           + "[ SIZE [ R:C ... ] ]");
+        System.exit(1);
+    }
+
+    /** A move, as given on the command line. */
+    private static final Pattern MOVE = Pattern.compile("(\\d+):(\\d+)");
+}
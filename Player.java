@@ -1,5 +1,10 @@
 package jump61;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static jump61.Side.*;
 
 /** Represents one player in a game of Jump61.  At any given time, each
@@ -33,9 +38,128 @@ abstract class Player {
     }
 
     /** Return my next move, or a command.  Assumes that I am of the
+     *  proper color and that the game is not yet won.  By default,
+     *  chooses the move with findMove and announces it through my
+     *  Game (see Game.chosenMove). */
+    String getMove() {
+        return _game.chosenMove(findMove(getBoard()));
+    }
+
+    /** Return a move for the player to move on BOARD, chosen without
+     *  reference to my Game, or -1 if I cannot choose moves that way
+     *  (as when they come from a user).  Assumes that I am of the
      *  proper color and that the game is not yet won. */
-    abstract String getMove();
+    int findMove(Board board) {
+        return findMove(board, new AtomicBoolean(false), 0);
+    }
+
+    /** Return a move for the player to move on BOARD, as for
+     *  findMove(BOARD), but giving up, and returning -1, if STOP becomes
+     *  true before I have chosen, and taking no longer than until
+     *  System.nanoTime() passes DEADLINE (if non-zero), whatever my
+     *  budget.  Players that can choose moves without reference to their
+     *  Game override this method. */
+    int findMove(Board board, AtomicBoolean stop, long deadline) {
+        return -1;
+    }
+
+    /** Begin choosing a move for the player to move on BOARD, as for
+     *  findMove(BOARD, STOP, DEADLINE), on a thread of my own, and return
+     *  the move to come, or null if I cannot choose moves that way.
+     *  BOARD is copied, and so may change afterward.  Cancelling the
+     *  result stops the choice, returning once my thread has stopped
+     *  working on it (which is promptly), so that I may then be used
+     *  again at once.  A cancelled choice is never completed.  Assumes
+     *  that I am of the proper color and that the game is not yet
+     *  won. */
+    CompletableFuture<Integer> findMoveAsync(Board board, long deadline) {
+        Board work = new Board(board);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        ForkJoinTask<?>[] task = new ForkJoinTask<?>[1];
+        CompletableFuture<Integer> result = new CompletableFuture<Integer>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                stop.set(true);
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                task[0].quietlyJoin();
+                return cancelled;
+            }
+        };
+        task[0] = movePool().submit(() -> {
+            try {
+                result.complete(findMove(work, stop, deadline));
+            } catch (RuntimeException | Error excp) {
+                result.completeExceptionally(excp);
+            }
+        });
+        return result;
+    }
+
+    /** Limit the time spent choosing each subsequent move to about MILLIS
+     *  milliseconds and the number of positions examined to about NODES,
+     *  where 0 means no limit.  Ignored by players that do not search. */
+    void setBudget(long millis, long nodes) {
+    }
+
+    /** Use up to THREADS threads to choose subsequent moves.  Ignored by
+     *  players that do not search. */
+    void setThreads(int threads) {
+    }
+
+    /** Take moves from BOOK (if not null) in positions it covers.
+     *  Ignored by players that do not search. */
+    void setOpeningBook(OpeningBook book) {
+    }
+
+    /** Begin thinking in the background about my next move while the
+     *  player to move in my game (my opponent) chooses theirs.  Ignored
+     *  by players that do not search, and if I am the player to move. */
+    void ponder() {
+    }
+
+    /** Stop any thinking begun by ponder, waiting until it has
+     *  stopped. */
+    void stopPondering() {
+    }
+
+    /** Return statistics about my recent moves, or null if I do not keep
+     *  any. */
+    SearchStats getStats() {
+        return null;
+    }
+
+    /** Play perfectly from TABLEBASE (if not null) on the boards it
+     *  covers.  Ignored by players that do not search. */
+    void setTablebase(Tablebase tablebase) {
+    }
+
+    /** Prepare to play COLOR in a new game, behaving as if newly created
+     *  with random-number seed SEED, but reusing my storage.  Players
+     *  that keep anything from one move to the next override this
+     *  method, calling it. */
+    void reset(Side color, long seed) {
+        _color = color;
+    }
+
+    /** Stop any work I am doing in the background and release my
+     *  threads, as when I am replaced in my Game.  I must not be used
+     *  afterward. */
+    void dispose() {
+        if (_movePool != null) {
+            _movePool.shutdown();
+        }
+    }
+
+    /** Return a thread for findMoveAsync, creating it if needed. */
+    private ForkJoinPool movePool() {
+        if (_movePool == null) {
+            _movePool = new ForkJoinPool(1);
+        }
+        return _movePool;
+    }
 
+    /** Thread for findMoveAsync, or null if not yet needed. */
+    private ForkJoinPool _movePool;
     /** My current color. */
     private Side _color;
     /** The game I'm in. */
@@ -0,0 +1,129 @@
+package jump61;
+
+/** Statistics about the moves chosen by an AI: counters for the last
+ *  move and running totals.  One thread records the statistics while
+ *  others (such as a JMX client) may read them, so access is
+ *  synchronized.
+ *  @author Melody Ma
+ */
+class SearchStats implements SearchStatsMBean {
+
+    /** Record a move taken from SOURCE ("search", "ponder", "solver",
+     *  "book", or "tablebase") after TIME nanoseconds, for which searches
+     *  completed DEPTH plies, visited NODES nodes, had CUTOFFS beta
+     *  cutoffs and TABLEHITS transposition-table hits, and saw MAXCASCADE
+     *  jumps as the most caused by one move, and the exact solver visited
+     *  SOLVERNODES nodes. */
+    synchronized void record(String source, long time, int depth,
+                             long nodes, long solverNodes, long cutoffs,
+                             long tableHits, int maxCascade) {
+        _source = source;
+        _time = time;
+        _depth = depth;
+        _nodes = nodes;
+        _solverNodes = solverNodes;
+        _cutoffs = cutoffs;
+        _tableHits = tableHits;
+        _maxCascade = maxCascade;
+        _moves += 1;
+        _totalNodes += nodes;
+        _totalSolverNodes += solverNodes;
+    }
+
+    @Override
+    public synchronized String getSource() {
+        return _source;
+    }
+
+    @Override
+    public synchronized int getDepth() {
+        return _depth;
+    }
+
+    @Override
+    public synchronized long getNodes() {
+        return _nodes;
+    }
+
+    @Override
+    public synchronized long getSolverNodes() {
+        return _solverNodes;
+    }
+
+    @Override
+    public synchronized long getCutoffs() {
+        return _cutoffs;
+    }
+
+    @Override
+    public synchronized long getTableHits() {
+        return _tableHits;
+    }
+
+    @Override
+    public synchronized int getMaxCascade() {
+        return _maxCascade;
+    }
+
+    @Override
+    public synchronized double getMillis() {
+        return _time / 1e6;
+    }
+
+    @Override
+    public synchronized double getNodesPerSecond() {
+        return _time == 0 ? 0 : (_nodes + _solverNodes) * 1e9 / _time;
+    }
+
+    @Override
+    public synchronized long getMoves() {
+        return _moves;
+    }
+
+    @Override
+    public synchronized long getTotalNodes() {
+        return _totalNodes;
+    }
+
+    @Override
+    public synchronized long getTotalSolverNodes() {
+        return _totalSolverNodes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (_moves == 0) {
+            return "no moves";
+        }
+        return String.format("%s, depth %d, %d nodes, %d solver nodes, "
+                             + "%d cutoffs, %d table hits, "
+                             + "longest cascade %d, %.3f s, %.0f nodes/s",
+                             _source, _depth, _nodes, _solverNodes,
+                             _cutoffs, _tableHits, _maxCascade,
+                             _time / 1e9, getNodesPerSecond());
+    }
+
+    /** Source of the last move. */
+    private String _source = "none";
+
+    /** Nanoseconds taken by the last move. */
+    private long _time;
+
+    /** Deepest search completed for the last move. */
+    private int _depth;
+
+    /** Counts for the last move. */
+    private long _nodes, _solverNodes, _cutoffs, _tableHits;
+
+    /** Most jumps caused by one move searched for the last move. */
+    private int _maxCascade;
+
+    /** Number of moves recorded. */
+    private long _moves;
+
+    /** Total nodes for all moves recorded. */
+    private long _totalNodes;
+
+    /** Total exact-solver nodes for all moves recorded. */
+    private long _totalSolverNodes;
+}
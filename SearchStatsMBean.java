@@ -0,0 +1,53 @@
+package jump61;
+
+/** The management interface through which a SearchStats is exposed by
+ *  JMX.  It must be public for the JMX introspector.
+ *  @author Melody Ma
+ */
+public interface SearchStatsMBean {
+
+    /** Return the source of the last move: "search", "ponder", "solver",
+     *  "book", or "tablebase". */
+    String getSource();
+
+    /** Return the deepest search completed for the last move. */
+    int getDepth();
+
+    /** Return the number of nodes visited by searches for the last
+     *  move. */
+    long getNodes();
+
+    /** Return the number of nodes visited by the exact solver for the
+     *  last move. */
+    long getSolverNodes();
+
+    /** Return the number of beta cutoffs during the last move. */
+    long getCutoffs();
+
+    /** Return the number of transposition-table hits during the last
+     *  move. */
+    long getTableHits();
+
+    /** Return the largest number of jumps caused by one move during the
+     *  search for the last move. */
+    int getMaxCascade();
+
+    /** Return the time taken by the last move, in milliseconds. */
+    double getMillis();
+
+    /** Return the speed for the last move, in nodes (searched or solved)
+     *  per second. */
+    double getNodesPerSecond();
+
+    /** Return the number of moves recorded. */
+    long getMoves();
+
+    /** Return the total number of nodes visited by searches for all
+     *  moves recorded. */
+    long getTotalNodes();
+
+    /** Return the total number of nodes visited by the exact solver for
+     *  all moves recorded. */
+    long getTotalSolverNodes();
+
+}
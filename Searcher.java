@@ -0,0 +1,594 @@
+package jump61;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static jump61.Side.*;
+import static jump61.TranspositionTable.*;
+
+/** One thread's game-tree search on behalf of an AI.  Several Searchers
+ *  may share a TranspositionTable and search the same position at once,
+ *  each on its own Board; each Searcher is used by one thread at a
+ *  time.
+ *  @author Melody Ma
+ */
+class Searcher {
+
+    /** A Searcher that records its results in TABLE and evaluates
+     *  positions with EVALUATOR.  If RANDOM is non-null, it is used to
+     *  perturb the order in which moves are tried at the top level, so
+     *  that helper searches diverge from the main one. */
+    Searcher(TranspositionTable table, Evaluator evaluator, Random random) {
+        _table = table;
+        _evaluator = evaluator;
+        _random = random;
+    }
+
+    /** Return a move for the player to move on BOARD found by iterative
+     *  deepening: searches to depths FIRSTDEPTH, FIRSTDEPTH + 1, ...,
+     *  MAXDEPTH, returning the move found by the deepest search completed
+     *  (-1 if none).  After the first, each search starts with an
+     *  aspiration window of ASPIRATION around the previous value, and is
+     *  repeated with the window opened on one side if the value falls
+     *  outside it.  A search is abandoned when STOP becomes true, or,
+     *  once some move has been found, when NODELIMIT > 0 nodes have been
+     *  searched or DEADLINE (a System.nanoTime() value, if non-zero) has
+     *  passed.  Assumes the game is not over. */
+    int deepen(Board board, int firstDepth, int maxDepth,
+               AtomicBoolean stop, long deadline, long nodeLimit) {
+        _stop = stop;
+        _deadline = deadline;
+        _nodeLimit = nodeLimit;
+        _nodes = _cutoffs = _tableHits = 0;
+        _maxJumps = _depth = _selectiveDepth = _value = 0;
+        _aborted = false;
+        _variationLength = 0;
+        startOrdering(board);
+        int move = -1;
+        int value = 0;
+        for (int depth = firstDepth; depth <= maxDepth; depth += 1) {
+            _abortable = move != -1;
+            int alpha = -INFINITY, beta = INFINITY;
+            if (move != -1) {
+                alpha = value - ASPIRATION;
+                beta = value + ASPIRATION;
+            }
+            while (true) {
+                _foundMove = -1;
+                value = search(board, depth, 0, alpha, beta);
+                if (_aborted) {
+                    break;
+                } else if (value <= alpha) {
+                    alpha = -INFINITY;
+                } else if (value >= beta) {
+                    beta = INFINITY;
+                } else {
+                    break;
+                }
+            }
+            if (_aborted) {
+                break;
+            }
+            move = _foundMove;
+            _depth = depth;
+            _value = value;
+            _variationLength = _pvLength[0];
+            System.arraycopy(_pv[0], 0, _variation, 0, _variationLength);
+            if (Utils.getMessageLevel() >= 2) {
+                Utils.debug(2, "depth %d: value %d, %d nodes, variation%s",
+                            depth, value, _nodes, variationString(board));
+            }
+            if (Math.abs(value) >= AI.WIN_NUM) {
+                break;
+            }
+        }
+        return move;
+    }
+
+    /** Return the principal variation found by the last call to deepen:
+     *  the moves (starting with the one returned) along which its deepest
+     *  completed search expected play to go. */
+    int[] principalVariation() {
+        return Arrays.copyOf(_variation, _variationLength);
+    }
+
+    /** Return the principal variation from BOARD as a string: a blank,
+     *  then the moves separated by commas. */
+    private String variationString(Board board) {
+        StringBuilder result = new StringBuilder();
+        for (int k = 0; k < _variationLength; k += 1) {
+            result.append(k == 0 ? " " : ", ");
+            result.append(board.moveString(_variation[k]));
+        }
+        return result.toString();
+    }
+
+    /** Return the number of nodes visited by the last search. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of beta cutoffs in the last search. */
+    long cutoffs() {
+        return _cutoffs;
+    }
+
+    /** Return the number of transposition-table probes in the last search
+     *  that found an entry deep enough to use. */
+    long tableHits() {
+        return _tableHits;
+    }
+
+    /** Return the largest number of jumps caused by one move in the last
+     *  search. */
+    int maxJumps() {
+        return _maxJumps;
+    }
+
+    /** Return the depth of the deepest search completed by the last call
+     *  to deepen. */
+    int depthReached() {
+        return _depth;
+    }
+
+    /** Return the value, for the player to move, found by the deepest
+     *  search completed by the last call to deepen. */
+    int valueFound() {
+        return _value;
+    }
+
+    /** Return the greatest number of plies from the top level to any
+     *  position searched by the last call to deepen, including its
+     *  quiescence searches. */
+    int selectiveDepth() {
+        return _selectiveDepth;
+    }
+
+    /** Forget the move-ordering statistics gathered by previous
+     *  searches. */
+    void clear() {
+        if (_history != null) {
+            Arrays.fill(_history, 0);
+        }
+    }
+
+    /** Order moves as described for orderMoves iff ON (the default);
+     *  otherwise, try them in the order given by Board.legalMoves. */
+    void setOrdering(boolean on) {
+        _ordering = on;
+    }
+
+    /** Limit quiescence searches to PLIES plies below the full-width
+     *  search and NODES moves in all, instead of
+     *  Defaults.QUIESCENCE_PLIES and Defaults.QUIESCENCE_NODES.  In any
+     *  case, no position is searched more than MAX_PLY plies from the
+     *  top level. */
+    void setQuiescence(int plies, int nodes) {
+        _quiescencePlies = plies;
+        _quiescenceLimit = nodes;
+    }
+
+    /** Count one more node searched, and return true iff the search
+     *  should be abandoned. */
+    private boolean outOfBudget() {
+        _nodes += 1;
+        if (!_aborted) {
+            if (_stop.get()) {
+                _aborted = true;
+            } else if (!_abortable) {
+                return false;
+            } else if (_nodeLimit > 0 && _nodes > _nodeLimit) {
+                _aborted = true;
+            } else if (_deadline != 0 && (_nodes & CLOCK_INTERVAL) == 0
+                       && System.nanoTime() > _deadline) {
+                _aborted = true;
+            }
+        }
+        return _aborted;
+    }
+
+    /** Return the value of BOARD for the player to move, as found by a
+     *  principal variation search of DEPTH plies, the first of them at
+     *  PLY plies from the top level.  Searching at level 0 returns the
+     *  result of a quiescence search.  The result is exact if it
+     *  lies strictly between ALPHA and BETA; otherwise it is an upper
+     *  bound (if <= ALPHA) or a lower bound (if >= BETA) on the value.
+     *  Moves after the first are tried with a null window around ALPHA,
+     *  and searched again with the full window only if they turn out to
+     *  be better.  At the top level, records the best move found in
+     *  _foundMove; at every level, records the principal variation from
+     *  PLY in _pv[PLY].  Results are cached in the transposition table,
+     *  but are taken from it only in null-window searches, so that the
+     *  principal variation is not cut short.  If the search runs out of
+     *  budget, returns a meaningless value (with _aborted set). */
+    private int search(Board board, int depth, int ply, int alpha,
+                       int beta) {
+        _pvLength[ply] = ply;
+        _selectiveDepth = Math.max(_selectiveDepth, ply);
+        if (outOfBudget()) {
+            return 0;
+        } else if (board.getWinner() != null) {
+            return staticEval(board);
+        } else if (depth == 0) {
+            _quiescenceNodes = 0;
+            return quiesce(board, ply, _quiescencePlies, alpha, beta);
+        }
+        boolean topLevel = ply == 0;
+        long key = board.zobristKey();
+        long entry = _table.probe(key);
+        if (entry != 0 && beta - alpha == 1 && depth(entry) >= depth) {
+            _tableHits += 1;
+            int value = value(entry);
+            switch (bound(entry)) {
+            case LOWER:
+                alpha = Math.max(alpha, value);
+                break;
+            case UPPER:
+                beta = Math.min(beta, value);
+                break;
+            default:
+                return value;
+            }
+            if (alpha >= beta) {
+                return value;
+            }
+        }
+        int alpha0 = alpha;
+        int best = -INFINITY, bestMove = -1;
+        Side player = board.whoseMove();
+        int[] moves = _moves[ply], scores = _scores[ply];
+        int numMoves = orderMoves(board, player, ply,
+                                  entry == 0 ? -1 : move(entry), topLevel);
+        for (int k = 0; k < numMoves; k++) {
+            int i = selectMove(moves, scores, k, numMoves);
+            board.addSpot(player, i);
+            _maxJumps = Math.max(_maxJumps, board.jumps());
+            int value;
+            if (k == 0) {
+                value = -search(board, depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                value = -search(board, depth - 1, ply + 1,
+                                -alpha - 1, -alpha);
+                if (value > alpha && value < beta && !_aborted) {
+                    value = -search(board, depth - 1, ply + 1,
+                                    -beta, -alpha);
+                }
+            }
+            board.undo();
+            if (_aborted) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = i;
+                if (value > alpha) {
+                    alpha = value;
+                    recordVariation(ply, i);
+                    if (topLevel) {
+                        _foundMove = i;
+                    }
+                    if (alpha >= beta) {
+                        recordCutoff(i, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+        int bound;
+        if (best <= alpha0) {
+            bound = UPPER;
+        } else if (best >= beta) {
+            bound = LOWER;
+        } else {
+            bound = EXACT;
+        }
+        _table.store(key, depth, bound, best, bestMove);
+        return best;
+    }
+
+    /** Return the value of BOARD, PLY plies from the top level, for the
+     *  player to move, as found by a quiescence search, with the same
+     *  meaning of ALPHA and BETA as for search.  The player to move may
+     *  take the static value ("stand pat") or, if it is not good enough,
+     *  try moves onto its own critical squares next to its opponent's,
+     *  whose cascades capture squares.  Those are followed until no such
+     *  moves remain, or until DEPTH more plies or _quiescenceLimit such
+     *  moves in all have been made below the last full-width ply, or
+     *  PLY reaches MAX_PLY, after which positions get their static
+     *  values.  If the search runs out of budget, returns a meaningless
+     *  value (with _aborted set). */
+    private int quiesce(Board board, int ply, int depth, int alpha,
+                        int beta) {
+        _pvLength[ply] = ply;
+        _selectiveDepth = Math.max(_selectiveDepth, ply);
+        int best = staticEval(board);
+        if (board.getWinner() != null || best >= beta || depth == 0
+            || ply >= MAX_PLY || _quiescenceNodes >= _quiescenceLimit) {
+            return best;
+        }
+        alpha = Math.max(alpha, best);
+        Side player = board.whoseMove();
+        int[] moves = _moves[ply];
+        int numMoves = captures(board, player, moves);
+        for (int k = 0; k < numMoves; k += 1) {
+            if (outOfBudget()) {
+                return 0;
+            }
+            _quiescenceNodes += 1;
+            board.addSpot(player, moves[k]);
+            _maxJumps = Math.max(_maxJumps, board.jumps());
+            int value = -quiesce(board, ply + 1, depth - 1, -beta, -alpha);
+            board.undo();
+            if (_aborted) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                alpha = Math.max(alpha, value);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Store in MOVES the squares owned by PLAYER on BOARD that are
+     *  critical and have a neighbor owned by PLAYER's opponent, so that
+     *  adding a spot to them captures squares, and return how many there
+     *  are. */
+    private int captures(Board board, Side player, int[] moves) {
+        NeighborTable nbrs = board.neighborTable();
+        Side opponent = player.opposite();
+        int numMoves = board.legalMoves(player, moves);
+        int n;
+        n = 0;
+        for (int k = 0; k < numMoves; k += 1) {
+            int i = moves[k];
+            Square sq = board.get(i);
+            if (sq.getSide() != player || sq.getSpots() != nbrs.degree(i)) {
+                continue;
+            }
+            for (int j = nbrs.start(i); j < nbrs.end(i); j += 1) {
+                if (board.get(nbrs.target(j)).getSide() == opponent) {
+                    moves[n] = i;
+                    n += 1;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    /** Record that MOVE, followed by the principal variation from PLY + 1,
+     *  is the principal variation from PLY. */
+    private void recordVariation(int ply, int move) {
+        _pv[ply][ply] = move;
+        int end = _pvLength[ply + 1];
+        System.arraycopy(_pv[ply + 1], ply + 1, _pv[ply], ply + 1,
+                         end - ply - 1);
+        _pvLength[ply] = end;
+    }
+
+    /** Prepare the move-ordering tables for searches from BOARD: make sure
+     *  the per-ply move lists are large enough, forget killer moves, and
+     *  age the history counts. */
+    private void startOrdering(Board board) {
+        int numSquares = board.size() * board.size();
+        if (_moves == null || _moves[0].length < numSquares) {
+            _moves = new int[MAX_PLY + 1][numSquares];
+            _scores = new int[MAX_PLY + 1][numSquares];
+            _history = new int[numSquares];
+        }
+        for (int[] killers : _killers) {
+            killers[0] = killers[1] = -1;
+        }
+        for (int i = 0; i < _history.length; i += 1) {
+            _history[i] /= 2;
+        }
+    }
+
+    /** Fill _moves[PLY] with the legal moves for PLAYER on BOARD and
+     *  _scores[PLY] with their ordering scores, returning the number of
+     *  moves.  In decreasing order of priority, the scores favor TTMOVE
+     *  (the best move from the transposition table, or -1), moves that
+     *  start a cascade, moves onto squares one spot short of that, the
+     *  killer moves for PLY, and moves with high history counts.  If
+     *  TOPLEVEL and I have a source of randomness, perturbs the scores
+     *  within each of those classes.  If ordering is off, all scores are
+     *  0.  Assumes the game is not over. */
+    private int orderMoves(Board board, Side player, int ply, int ttMove,
+                           boolean topLevel) {
+        int[] moves = _moves[ply], scores = _scores[ply];
+        int[] killers = _killers[ply];
+        int numMoves = board.legalMoves(player, moves);
+        for (int k = 0; k < numMoves; k += 1) {
+            int i = moves[k];
+            Square sq = board.get(i);
+            int score;
+            int missing = board.neighbors(i) - sq.getSpots();
+            if (!_ordering) {
+                score = 0;
+            } else if (i == ttMove) {
+                score = TT_SCORE;
+            } else if (missing == 0 && sq.getSide() == player) {
+                score = CASCADE_SCORE;
+            } else if (missing == 1 && sq.getSide() == player) {
+                score = NEAR_CASCADE_SCORE;
+            } else if (i == killers[0] || i == killers[1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = Math.min(_history[i], KILLER_SCORE - 1);
+            }
+            if (topLevel && _random != null) {
+                score += _random.nextInt(JITTER);
+            }
+            scores[k] = score;
+        }
+        return numMoves;
+    }
+
+    /** Assuming that MOVES[0 .. K-1] have been tried, move the untried
+     *  move among MOVES[K .. N-1] with the highest of the corresponding
+     *  SCORES to MOVES[K] (and its score to SCORES[K]), and return it. */
+    private static int selectMove(int[] moves, int[] scores, int k, int n) {
+        int best = k;
+        for (int j = k + 1; j < n; j += 1) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = moves[best], score = scores[best];
+        moves[best] = moves[k];
+        scores[best] = scores[k];
+        moves[k] = move;
+        scores[k] = score;
+        return move;
+    }
+
+    /** Record that MOVE caused a cutoff in a search of DEPTH plies at PLY
+     *  plies from the top level, for use in ordering later moves. */
+    private void recordCutoff(int move, int depth, int ply) {
+        _cutoffs += 1;
+        int[] killers = _killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        _history[move] = Math.min(_history[move] + depth * depth,
+                                  KILLER_SCORE - 1);
+    }
+
+    /** Return a heuristic estimate of the value of board position B for
+     *  the player to move, using AI.WIN_NUM for a win and -AI.WIN_NUM
+     *  for a loss. */
+    private int staticEval(Board b) {
+        int value;
+        if (b.getWinner() == RED) {
+            value = AI.WIN_NUM;
+        } else if (b.getWinner() == BLUE) {
+            value = -AI.WIN_NUM;
+        } else {
+            value = _evaluator.evaluate(b);
+        }
+        return b.whoseMove() == RED ? value : -value;
+    }
+
+    /** Number of nanoseconds in a millisecond. */
+    static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /** The clock is consulted once every CLOCK_INTERVAL + 1 nodes. */
+    static final int CLOCK_INTERVAL = 1023;
+
+    /** Shared record of previous search results. */
+    private final TranspositionTable _table;
+
+    /** Static evaluation function. */
+    private final Evaluator _evaluator;
+
+    /** Source of variation in move order, or null for none. */
+    private final Random _random;
+
+    /** Ordering scores for the classes of moves distinguished by
+     *  orderMoves. */
+    private static final int
+        TT_SCORE = 4_000_000,
+        CASCADE_SCORE = 3_000_000,
+        NEAR_CASCADE_SCORE = 2_000_000,
+        KILLER_SCORE = 1_000_000;
+
+    /** Bound on the random perturbation of top-level move scores in
+     *  helper searches. */
+    private static final int JITTER = 1000;
+
+    /** True iff moves are ordered by orderMoves's scores. */
+    private boolean _ordering = true;
+
+    /** _moves[P] and _scores[P] hold the moves being tried P plies from
+     *  the top level, and their ordering scores. */
+    private int[][] _moves, _scores;
+
+    /** _killers[P] holds the two most recent moves that caused cutoffs
+     *  P plies from the top level (-1 if none). */
+    private final int[][] _killers =
+        new int[MAX_PLY + 1][2];
+
+    /** For each square, a measure of how often (and how deep in the tree)
+     *  moves there have caused cutoffs. */
+    private int[] _history;
+
+    /** Greatest number of plies from the top level to any position
+     *  searched, including the quiescence search. */
+    private static final int MAX_PLY =
+        Defaults.MAX_SEARCH_DEPTH + Defaults.QUIESCENCE_PLIES;
+
+    /** Bound on the magnitude of all values. */
+    private static final int INFINITY = Integer.MAX_VALUE - 1;
+
+    /** Half the width of the aspiration window around the previous
+     *  iteration's value. */
+    private static final int ASPIRATION = 25;
+
+    /** _pv[P][P .. _pvLength[P]-1] is the principal variation from P
+     *  plies below the top level in the current search. */
+    private final int[][] _pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+
+    /** See _pv. */
+    private final int[] _pvLength = new int[MAX_PLY + 2];
+
+    /** The principal variation from the deepest completed search, in
+     *  _variation[0 .. _variationLength-1]. */
+    private final int[] _variation = new int[MAX_PLY + 1];
+
+    /** See _variation. */
+    private int _variationLength;
+
+    /** Used to convey moves discovered by search. */
+    private int _foundMove;
+
+    /** Set to true to abandon the current search. */
+    private AtomicBoolean _stop;
+
+    /** Value of System.nanoTime() at which the current search must stop,
+     *  or 0 if none. */
+    private long _deadline;
+
+    /** Budget of nodes for the current search, or 0 if none. */
+    private long _nodeLimit;
+
+    /** Number of nodes visited by the current search. */
+    private long _nodes;
+
+    /** Numbers of beta cutoffs and of usable transposition-table entries
+     *  found in the current search. */
+    private long _cutoffs, _tableHits;
+
+    /** Most jumps caused by one move in the current search. */
+    private int _maxJumps;
+
+    /** Number of moves made by the current quiescence search. */
+    private int _quiescenceNodes;
+
+    /** Limits on the plies and moves of each quiescence search. */
+    private int _quiescencePlies = Defaults.QUIESCENCE_PLIES,
+        _quiescenceLimit = Defaults.QUIESCENCE_NODES;
+
+    /** Greatest number of plies from the top level to any position
+     *  searched by the current call to deepen. */
+    private int _selectiveDepth;
+
+    /** Deepest search completed by the current call to deepen. */
+    private int _depth;
+
+    /** Value found by the search to depth _depth. */
+    private int _value;
+
+    /** True iff the current search may be abandoned when out of
+     *  budget. */
+    private boolean _abortable;
+
+    /** True iff the current search has been abandoned. */
+    private boolean _aborted;
+
+}
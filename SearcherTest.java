@@ -0,0 +1,189 @@
+package jump61;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.Side.*;
+
+/** Unit tests of Searchers.
+ *  @author Melody Ma
+ */
+public class SearcherTest {
+
+    @Test
+    public void testQuiescenceLimit() {
+        Board board = randomBoard(5, 30, 19);
+        Searcher limited = searcher();
+        Searcher unlimited = searcher();
+        unlimited.setQuiescence(UNLIMITED, UNLIMITED);
+        int move = limited.deepen(new Board(board), 1, 1, STOP, 0, 0);
+        unlimited.deepen(new Board(board), 1, 1, STOP, 0, 0);
+        assertTrue("chain too short",
+                   unlimited.selectiveDepth() > 1 + Defaults.QUIESCENCE_PLIES);
+        assertTrue("quiescence not limited",
+                   limited.selectiveDepth() <= 1 + Defaults.QUIESCENCE_PLIES);
+        assertTrue("too many nodes", limited.nodes() < unlimited.nodes());
+        assertTrue("illegal move", board.isLegal(board.whoseMove(), move));
+    }
+
+    @Test
+    public void testQuiescenceValues() {
+        int compared;
+        compared = 0;
+        for (long seed = 0; seed < TRIALS; seed += 1) {
+            Board board = randomBoard(5, 20, seed);
+            if (board.getWinner() != null) {
+                continue;
+            }
+            Searcher limited = searcher();
+            limited.setQuiescence(Defaults.QUIESCENCE_PLIES, UNLIMITED);
+            Searcher unlimited = searcher();
+            unlimited.setQuiescence(UNLIMITED, UNLIMITED);
+            for (int depth = 1; depth <= 2; depth += 1) {
+                limited.deepen(new Board(board), depth, depth, STOP, 0, 0);
+                unlimited.deepen(new Board(board), depth, depth, STOP, 0, 0);
+                if (unlimited.selectiveDepth()
+                    <= depth + Defaults.QUIESCENCE_PLIES) {
+                    compared += 1;
+                    assertEquals("seed " + seed + ", depth " + depth,
+                                 unlimited.valueFound(),
+                                 limited.valueFound());
+                }
+            }
+        }
+        assertTrue("too few positions compared", compared >= TRIALS);
+    }
+
+    @Test
+    public void testFixedDepth() {
+        for (long seed = 0; seed < TRIALS; seed += 1) {
+            Board board = randomBoard(4, 10, seed);
+            if (board.getWinner() != null) {
+                continue;
+            }
+            for (int depth = 1; depth <= 3; depth += 1) {
+                Searcher searcher = searcher();
+                searcher.setQuiescence(0, 0);
+                int move = searcher.deepen(new Board(board), depth, depth,
+                                           STOP, 0, 0);
+                int value = negamax(board, depth);
+                String msg = "seed " + seed + ", depth " + depth;
+                assertEquals(msg, value, searcher.valueFound());
+                board.addSpot(board.whoseMove(), move);
+                assertEquals(msg + ": wrong move", value,
+                             -negamax(board, depth - 1));
+                board.undo();
+            }
+        }
+    }
+
+    @Test
+    public void testPrincipalVariationSearch() {
+        Searcher searcher = searcher();
+        searcher.setQuiescence(0, 0);
+        for (long seed = 0; seed < TRIALS; seed += 1) {
+            Board board = randomBoard(3 + (int) (seed % 2), 6, seed);
+            if (board.getWinner() != null) {
+                continue;
+            }
+            for (int depth = 3; depth <= 4; depth += 1) {
+                searcher.deepen(new Board(board), 1, depth, STOP, 0, 0);
+                if (searcher.depthReached() == depth) {
+                    assertEquals("seed " + seed + ", depth " + depth,
+                                 negamax(board, depth),
+                                 searcher.valueFound());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOrdering() {
+        long orderedNodes, unorderedNodes;
+        orderedNodes = unorderedNodes = 0;
+        for (long seed = 0; seed < TRIALS; seed += 1) {
+            Board board = randomBoard(4 + (int) (seed % 2), 12, seed);
+            if (board.getWinner() != null) {
+                continue;
+            }
+            for (int depth = 1; depth <= 3; depth += 1) {
+                Searcher ordered = searcher();
+                ordered.setQuiescence(Defaults.QUIESCENCE_PLIES, UNLIMITED);
+                Searcher unordered = searcher();
+                unordered.setQuiescence(Defaults.QUIESCENCE_PLIES, UNLIMITED);
+                unordered.setOrdering(false);
+                ordered.deepen(new Board(board), 1, depth, STOP, 0, 0);
+                unordered.deepen(new Board(board), 1, depth, STOP, 0, 0);
+                assertEquals("seed " + seed + ", depth " + depth,
+                             unordered.valueFound(), ordered.valueFound());
+                orderedNodes += ordered.nodes();
+                unorderedNodes += unordered.nodes();
+            }
+        }
+        assertTrue("ordering did not help", orderedNodes < unorderedNodes);
+    }
+
+    /** Return the value of BOARD for the player to move, as found by a
+     *  plain negamax search of DEPTH plies, with static values (as
+     *  used by Searchers with no quiescence search) at the leaves. */
+    static int negamax(Board board, int depth) {
+        Side player = board.whoseMove();
+        if (board.getWinner() != null || depth == 0) {
+            int value;
+            if (board.getWinner() != null) {
+                value = board.getWinner() == RED ? AI.WIN_NUM : -AI.WIN_NUM;
+            } else {
+                value = EVALUATOR.evaluate(board);
+            }
+            return player == RED ? value : -value;
+        }
+        int[] moves = new int[board.size() * board.size()];
+        int numMoves = board.legalMoves(player, moves);
+        int best = -Integer.MAX_VALUE;
+        for (int k = 0; k < numMoves; k += 1) {
+            board.addSpot(player, moves[k]);
+            best = Math.max(best, -negamax(board, depth - 1));
+            board.undo();
+        }
+        return best;
+    }
+
+    /** Return a new Searcher with its own transposition table. */
+    static Searcher searcher() {
+        return new Searcher(new TranspositionTable(TABLE_BITS), EVALUATOR,
+                            null);
+    }
+
+    /** Return an N x N board after MOVES random legal moves from the
+     *  initial position, chosen using SEED, stopping early if the game
+     *  is won. */
+    static Board randomBoard(int n, int moves, long seed) {
+        Random random = new Random(seed);
+        Board board = new Board(n);
+        int[] legal = new int[n * n];
+        for (int k = 0; k < moves && board.getWinner() == null; k += 1) {
+            int numMoves = board.legalMoves(board.whoseMove(), legal);
+            board.addSpot(board.whoseMove(), legal[random.nextInt(numMoves)]);
+        }
+        return board;
+    }
+
+    /** Number of random positions tried by some tests. */
+    private static final int TRIALS = 40;
+
+    /** A limit on quiescence search that is never reached. */
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** Size, in bits, of the transposition tables used in tests. */
+    private static final int TABLE_BITS = 16;
+
+    /** The evaluator used in tests. */
+    private static final Evaluator EVALUATOR = new CriticalMassEvaluator();
+
+    /** A stop flag that is never set. */
+    private static final AtomicBoolean STOP = new AtomicBoolean();
+
+}
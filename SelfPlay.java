@@ -0,0 +1,183 @@
+package jump61;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static jump61.Side.*;
+
+/** A headless tournament between two automated players, for measuring
+ *  changes in playing strength.  Games are played directly on Boards,
+ *  with no Game, CommandSource, or Reporter, and many games are played
+ *  at once on a pool of threads.  The two engines alternate colors from
+ *  game to game, and each game begins with a few random moves so that
+ *  deterministic engines do not simply replay one game.  Game #K is
+ *  the same no matter how many threads are used, since its players are
+ *  reset and seeded by K.  Players are reused from game to game rather
+ *  than created for each, so as not to allocate their tables anew.
+ *  @author Melody Ma
+ */
+class SelfPlay {
+
+    /** Play a tournament and print its results.  ARGS are GAMES [ SIZE
+     *  [ ENGINE1 [ ENGINE2 [ THREADS [ BUDGET ] ] ] ] ]: the number of
+     *  games, the board size (default Defaults.BOARD_SIZE), the engines
+     *  as for the "auto" command (default minimax), the number of games
+     *  played at once (default the number of processors), and the limit
+     *  on nodes or playouts per move (default 0: the engines' own
+     *  default). */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 6) {
+            System.err.println("Usage: java jump61.SelfPlay GAMES [ SIZE "
+                               + "[ ENGINE1 [ ENGINE2 [ THREADS "
+                               + "[ BUDGET ] ] ] ] ]");
+            System.exit(1);
+        }
+        try {
+            int games = Utils.toInt(args[0]);
+            int size = args.length > 1 ? Utils.toInt(args[1])
+                : Defaults.BOARD_SIZE;
+            String engine1 = args.length > 2 ? args[2] : "minimax";
+            String engine2 = args.length > 3 ? args[3] : "minimax";
+            int threads = args.length > 4 ? Utils.toInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+            long budget = args.length > 5 ? Utils.toLong(args[5]) : 0;
+            if (games < 1 || size < 2 || size > Defaults.MAX_BOARD_SIZE
+                || threads < 1 || budget < 0) {
+                throw GameException.error("argument out of range");
+            }
+            Game.automatedPlayer(null, RED, 0, engine1);
+            Game.automatedPlayer(null, RED, 0, engine2);
+            new SelfPlay(games, size, engine1, engine2, threads, budget)
+                .run();
+        } catch (GameException | NumberFormatException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** A tournament of GAMES games on SIZE x SIZE boards between ENGINE1
+     *  and ENGINE2, using THREADS threads and allowing BUDGET nodes or
+     *  playouts per move (0 for the engines' default). */
+    SelfPlay(int games, int size, String engine1, String engine2,
+             int threads, long budget) {
+        _games = games;
+        _size = size;
+        _engines = new String[] { engine1, engine2 };
+        _threads = threads;
+        _budget = budget;
+    }
+
+    /** Play all my games and print a summary on the standard output. */
+    void run() {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(_threads);
+        ArrayList<ForkJoinTask<int[]>> results = new ArrayList<>();
+        for (int k = 0; k < _games; k += 1) {
+            int game = k;
+            results.add(pool.submit(() -> play(game)));
+        }
+        int[] wins = new int[2];
+        int redWins, totalMoves, minMoves, maxMoves;
+        redWins = totalMoves = maxMoves = 0;
+        minMoves = Integer.MAX_VALUE;
+        for (int k = 0; k < _games; k += 1) {
+            int[] result = results.get(k).join();
+            wins[result[0]] += 1;
+            if (result[0] == k % 2) {
+                redWins += 1;
+            }
+            totalMoves += result[1];
+            minMoves = Math.min(minMoves, result[1]);
+            maxMoves = Math.max(maxMoves, result[1]);
+        }
+        pool.shutdown();
+        for (Player[] players : _idle) {
+            for (Player player : players) {
+                player.dispose();
+            }
+        }
+        _idle.clear();
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games on %dx%d boards, %d threads, "
+                          + "budget %d%n", _games, _size, _size, _threads,
+                          _budget);
+        for (int e = 0; e < 2; e += 1) {
+            System.out.printf("Engine %d (%s) wins %6d (%5.1f%%)%n",
+                              e + 1, _engines[e], wins[e],
+                              100.0 * wins[e] / _games);
+        }
+        System.out.printf("Red wins %6d (%5.1f%%)%n", redWins,
+                          100.0 * redWins / _games);
+        System.out.printf("Game length: mean %.1f, min %d, max %d moves%n",
+                          (double) totalMoves / _games, minMoves, maxMoves);
+        System.out.printf("%d moves in %.1f s (%.0f moves per second)%n",
+                          totalMoves, secs, totalMoves / secs);
+    }
+
+    /** Play game #K and return its result: the index in _engines of the
+     *  winner, and the number of moves.  The game is played by a pair of
+     *  players from _idle (or new ones, if none are idle), which are
+     *  returned there afterward. */
+    int[] play(int k) {
+        Player[] engines = _idle.poll();
+        if (engines == null) {
+            engines = new Player[2];
+            for (int e = 0; e < 2; e += 1) {
+                engines[e] = Game.automatedPlayer(null, RED, 0, _engines[e]);
+                engines[e].setBudget(0, _budget);
+            }
+        }
+        Player[] players = new Player[Side.values().length];
+        for (int e = 0; e < 2; e += 1) {
+            Side color = e == k % 2 ? RED : BLUE;
+            engines[e].reset(color, 2L * k + e);
+            players[color.ordinal()] = engines[e];
+        }
+        Random random = new Random(k);
+        Board board = new Board(_size);
+        int moves;
+        for (moves = 0; board.getWinner() == null; moves += 1) {
+            Side player = board.whoseMove();
+            int move;
+            if (moves < RANDOM_PLIES) {
+                do {
+                    move = random.nextInt(_size * _size);
+                } while (!board.isLegal(player, move));
+            } else {
+                move = players[player.ordinal()].findMove(board);
+            }
+            board.addSpot(player, move);
+        }
+        _idle.add(engines);
+        int winner = board.getWinner() == RED ? k % 2 : 1 - k % 2;
+        Utils.debug(1, "game %d: engine %d wins in %d moves", k,
+                    winner + 1, moves);
+        return new int[] { winner, moves };
+    }
+
+    /** Number of random moves that begin each game. */
+    private static final int RANDOM_PLIES = 2;
+
+    /** Number of games to play. */
+    private final int _games;
+
+    /** Size of the boards. */
+    private final int _size;
+
+    /** The names of the two engines. */
+    private final String[] _engines;
+
+    /** Number of games to play at once. */
+    private final int _threads;
+
+    /** Limit on nodes or playouts per move, or 0 for none. */
+    private final long _budget;
+
+    /** Pairs of players, one for each of _engines, not currently in use
+     *  by a game. */
+    private final ConcurrentLinkedQueue<Player[]> _idle =
+        new ConcurrentLinkedQueue<>();
+}
@@ -0,0 +1,27 @@
+package jump61;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of SelfPlay tournaments.
+ *  @author Melody Ma
+ */
+public class SelfPlayTest {
+
+    @Test
+    public void testReusedPlayers() {
+        SelfPlay tournament = new SelfPlay(1, 3, "minimax", "mcts", 1, 200);
+        int[] first = tournament.play(0);
+        assertTrue("bad winner", first[0] == 0 || first[0] == 1);
+        assertTrue("too few moves", first[1] > 0);
+        for (int k = 1; k < 3; k += 1) {
+            tournament.play(k);
+        }
+        assertEquals("game changed with reused players",
+                     Arrays.toString(first),
+                     Arrays.toString(tournament.play(0)));
+    }
+
+}
@@ -0,0 +1,283 @@
+package jump61;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static jump61.Side.*;
+
+/** The exact value of every position reachable on the smallest boards,
+ *  computed by retrograde analysis.  Positions are indexed by a perfect
+ *  hash: each square is a digit in a mixed-radix number, with radix 2D+1
+ *  for a square with D neighbors (digit 0 for an unclaimed square, S for
+ *  a red square with S spots, and D+S for a blue one).  The player to
+ *  move need not be part of the index, since it is determined by the
+ *  parity of the total number of spots.  Each index has a 2-bit entry,
+ *  four to a byte: UNKNOWN for positions not reachable from the start
+ *  (and for unused indices), and otherwise WIN or LOSS for the player to
+ *  move.
+ *
+ *  A tablebase file consists of the 4-byte MAGIC number and, for each of
+ *  its board sizes, a 4-byte size, a 4-byte length L, and L bytes of
+ *  packed entries (all big-endian).  It is memory-mapped rather than
+ *  read.  Running this class as a program generates a tablebase file.
+ *  @author Melody Ma
+ */
+class Tablebase {
+
+    /** Entry values. */
+    static final int UNKNOWN = 0, WIN = 1, LOSS = 2;
+
+    /** A tablebase whose contents are in the file named NAME. */
+    static Tablebase load(String name) throws IOException {
+        try (FileChannel chan =
+             FileChannel.open(Paths.get(name), StandardOpenOption.READ)) {
+            ByteBuffer data = chan.map(FileChannel.MapMode.READ_ONLY,
+                                       0, chan.size());
+            ByteBuffer[] tables = new ByteBuffer[Defaults.MAX_BOARD_SIZE + 1];
+            if (data.limit() < Integer.BYTES || data.getInt() != MAGIC) {
+                throw new IOException("bad tablebase: " + name);
+            }
+            while (data.hasRemaining()) {
+                if (data.remaining() < 2 * Integer.BYTES) {
+                    throw new IOException("bad tablebase: " + name);
+                }
+                int N = data.getInt(), length = data.getInt();
+                if (N < 2 || N >= tables.length
+                    || length != (numIndices(N) + 3) / 4
+                    || length > data.remaining()) {
+                    throw new IOException("bad tablebase: " + name);
+                }
+                ByteBuffer table = data.slice();
+                table.limit(length);
+                tables[N] = table;
+                data.position(data.position() + length);
+            }
+            return new Tablebase(tables);
+        }
+    }
+
+    /** A tablebase for boards of each size from 2 to MAXSIZE, computed
+     *  in memory. */
+    static Tablebase generate(int maxSize) {
+        ByteBuffer[] tables = new ByteBuffer[Defaults.MAX_BOARD_SIZE + 1];
+        for (int N = 2; N <= maxSize; N += 1) {
+            tables[N] = ByteBuffer.wrap(solve(N));
+        }
+        return new Tablebase(tables);
+    }
+
+    /** A tablebase whose packed entries for boards of size N are
+     *  TABLES[N] (null if absent). */
+    private Tablebase(ByteBuffer[] tables) {
+        _tables = tables;
+    }
+
+    /** Return true iff I have entries for boards of BOARD's size. */
+    boolean covers(Board board) {
+        return board.size() < _tables.length
+            && _tables[board.size()] != null;
+    }
+
+    /** Return the value (WIN or LOSS) of BOARD for the player to move,
+     *  or UNKNOWN if I do not cover it.  Assumes the game is not over. */
+    int value(Board board) {
+        if (!covers(board)) {
+            return UNKNOWN;
+        }
+        return entry(_tables[board.size()], index(board));
+    }
+
+    /** Return a move with which the player to move on BOARD wins against
+     *  any defense, or -1 if there is none or BOARD is not covered.
+     *  Assumes the game is not over. */
+    int move(Board board) {
+        if (value(board) != WIN) {
+            return -1;
+        }
+        Side player = board.whoseMove();
+        ByteBuffer table = _tables[board.size()];
+        Board work = new Board(board);
+        for (int i = 0; i < board.size() * board.size(); i += 1) {
+            if (work.isLegal(player, i)) {
+                work.addSpot(player, i);
+                boolean wins = work.getWinner() == player
+                    || entry(table, index(work)) == LOSS;
+                work.undo();
+                if (wins) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Generate a tablebase covering boards of each size from 2 to
+     *  ARGS[1] (default Defaults.TABLEBASE_MAX_SIZE) and write it to the
+     *  file named ARGS[0]. */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java jump61.Tablebase FILE "
+                               + "[ MAXSIZE ]");
+            System.exit(1);
+        }
+        int maxSize = args.length > 1 ? Integer.parseInt(args[1])
+            : Defaults.TABLEBASE_MAX_SIZE;
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(args[0])))) {
+            out.writeInt(MAGIC);
+            for (int N = 2; N <= maxSize; N += 1) {
+                byte[] table = solve(N);
+                out.writeInt(N);
+                out.writeInt(table.length);
+                out.write(table);
+            }
+        } catch (IOException excp) {
+            System.err.printf("Could not write %s%n", args[0]);
+            System.exit(1);
+        }
+    }
+
+    /** Return the packed entries for all positions reachable on an N x N
+     *  board.  The positions are first enumerated forward from the start,
+     *  layer by layer, where layer K holds the positions after K moves.
+     *  Since every move adds a spot, each position lies in exactly one
+     *  layer and all its successors lie in the next, so the layers can
+     *  then be solved backward, from the last to the first, with each
+     *  position's successors already solved when it is reached. */
+    private static byte[] solve(int N) {
+        ByteBuffer table = ByteBuffer.allocate((numIndices(N) + 3) / 4);
+        Board board = new Board(N);
+        int[][] layers = new int[N * N * 4][];
+        int[] layer = { index(board) };
+        setEntry(table, layer[0], REACHED);
+        int numLayers;
+        for (numLayers = 0; layer.length > 0; numLayers += 1) {
+            layers[numLayers] = layer;
+            int[] next = new int[layer.length];
+            int numNext = 0;
+            for (int posn : layer) {
+                decode(posn, board);
+                Side player = board.whoseMove();
+                for (int i = 0; i < N * N; i += 1) {
+                    if (!board.isLegal(player, i)) {
+                        continue;
+                    }
+                    board.addSpot(player, i);
+                    if (board.getWinner() == null) {
+                        int succ = index(board);
+                        if (entry(table, succ) == UNKNOWN) {
+                            setEntry(table, succ, REACHED);
+                            if (numNext == next.length) {
+                                next = Arrays.copyOf(next, 2 * numNext);
+                            }
+                            next[numNext] = succ;
+                            numNext += 1;
+                        }
+                    }
+                    board.undo();
+                }
+            }
+            layer = Arrays.copyOf(next, numNext);
+        }
+        int reached = 0;
+        for (int k = numLayers - 1; k >= 0; k -= 1) {
+            for (int posn : layers[k]) {
+                decode(posn, board);
+                Side player = board.whoseMove();
+                int value = LOSS;
+                for (int i = 0; i < N * N && value == LOSS; i += 1) {
+                    if (board.isLegal(player, i)) {
+                        board.addSpot(player, i);
+                        if (board.getWinner() == player
+                            || entry(table, index(board)) == LOSS) {
+                            value = WIN;
+                        }
+                        board.undo();
+                    }
+                }
+                setEntry(table, posn, value);
+            }
+            reached += layers[k].length;
+        }
+        Utils.debug(1, "size %d: %d positions in %d layers", N, reached,
+                    numLayers);
+        return table.array();
+    }
+
+    /** Return the number of indices for positions on an N x N board. */
+    private static int numIndices(int N) {
+        NeighborTable nbrs = NeighborTable.forSize(N);
+        long result = 1;
+        for (int i = 0; i < N * N; i += 1) {
+            result *= 2 * nbrs.degree(i) + 1;
+            if (result > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("board too large");
+            }
+        }
+        return (int) result;
+    }
+
+    /** Return the index of the position on BOARD. */
+    private static int index(Board board) {
+        NeighborTable nbrs = board.neighborTable();
+        int result = 0;
+        for (int i = board.size() * board.size() - 1; i >= 0; i -= 1) {
+            int degree = nbrs.degree(i);
+            Square sq = board.get(i);
+            result *= 2 * degree + 1;
+            if (sq.getSide() == RED) {
+                result += sq.getSpots();
+            } else if (sq.getSide() == BLUE) {
+                result += degree + sq.getSpots();
+            }
+        }
+        return result;
+    }
+
+    /** Set BOARD to the position whose index is POSN. */
+    private static void decode(int posn, Board board) {
+        NeighborTable nbrs = board.neighborTable();
+        board.clear(board.size());
+        for (int i = 0; i < board.size() * board.size(); i += 1) {
+            int degree = nbrs.degree(i);
+            int digit = posn % (2 * degree + 1);
+            posn /= 2 * degree + 1;
+            if (digit > degree) {
+                board.set(board.row(i), board.col(i), digit - degree, BLUE);
+            } else if (digit > 0) {
+                board.set(board.row(i), board.col(i), digit, RED);
+            }
+        }
+    }
+
+    /** Return entry #POSN in the packed entries TABLE. */
+    private static int entry(ByteBuffer table, int posn) {
+        return (table.get(posn >> 2) >> ((posn & 3) << 1)) & 3;
+    }
+
+    /** Set entry #POSN in the packed entries TABLE to VALUE. */
+    private static void setEntry(ByteBuffer table, int posn, int value) {
+        int shift = (posn & 3) << 1;
+        int b = table.get(posn >> 2) & ~(3 << shift);
+        table.put(posn >> 2, (byte) (b | value << shift));
+    }
+
+    /** Temporary entry value for a position that has been reached but
+     *  not yet solved. */
+    private static final int REACHED = 3;
+
+    /** Identifies tablebase files ("J61T"). */
+    private static final int MAGIC = 0x4a363154;
+
+    /** Packed entries for each board size, indexed by size (null for
+     *  sizes not covered). */
+    private final ByteBuffer[] _tables;
+}
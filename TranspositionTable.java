@@ -0,0 +1,107 @@
+package jump61;
+
+import java.util.Arrays;
+
+/** A fixed-size cache of search results, indexed by Zobrist key.  The
+ *  table has a power-of-two number of buckets of two entries each.  The
+ *  first entry of a bucket is replaced only by results from searches at
+ *  least as deep as the one it holds; the second is always replaced.
+ *
+ *  Each entry is a key word and a data word, and the key word is stored
+ *  xor'ed with the data word, so that a probe that sees the two words
+ *  from different stores simply misses.  Hence, the table may be shared
+ *  by concurrent searches without locking.
+ *  @author Melody Ma
+ */
+final class TranspositionTable {
+
+    /** Bound types of stored values: the exact value, a lower bound on
+     *  the value (the search failed high), or an upper bound (the search
+     *  failed low). */
+    static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    /** A table of 2**LOGSIZE buckets. */
+    TranspositionTable(int logSize) {
+        _mask = (1 << logSize) - 1;
+        _keys = new long[2 << logSize];
+        _data = new long[2 << logSize];
+    }
+
+    /** Return the entry for the position with Zobrist key KEY, or 0 if
+     *  there is none.  Use depth, bound, value, and move to unpack the
+     *  result. */
+    long probe(long key) {
+        int k = index(key);
+        for (int i = k; i < k + 2; i += 1) {
+            long data = _data[i];
+            if ((_keys[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /** Record that a search of DEPTH plies from the position with Zobrist
+     *  key KEY yielded VALUE, which is of the given BOUND type, with MOVE
+     *  the best move found (or -1 if none). */
+    void store(long key, int depth, int bound, int value, int move) {
+        long data = (value & VALUE_MASK)
+            | ((long) (move + 1) << MOVE_SHIFT)
+            | ((long) depth << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT);
+        int i = index(key);
+        long first = _data[i];
+        if (first != 0 && (_keys[i] ^ first) != key
+            && depth(first) > depth) {
+            i += 1;
+        }
+        _data[i] = data;
+        _keys[i] = key ^ data;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_data, 0);
+    }
+
+    /** Return the search depth recorded in ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & BYTE_MASK;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) of ENTRY. */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & BYTE_MASK;
+    }
+
+    /** Return the value recorded in ENTRY. */
+    static int value(long entry) {
+        return (int) entry;
+    }
+
+    /** Return the best move recorded in ENTRY, or -1 if none. */
+    static int move(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & BYTE_MASK) - 1;
+    }
+
+    /** Return the index of the first entry of the bucket for KEY. */
+    private int index(long key) {
+        return 2 * ((int) (key ^ (key >>> 32)) & _mask);
+    }
+
+    /** Layout of a data word: value in the low 32 bits, then one byte
+     *  each of move + 1, depth, and bound type. */
+    private static final int
+        MOVE_SHIFT = 32, DEPTH_SHIFT = 40, BOUND_SHIFT = 48;
+    /** Masks for the fields of a data word. */
+    private static final long VALUE_MASK = 0xffffffffL;
+    /** Mask for the one-byte fields of a data word. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** Bucket number mask for Zobrist keys. */
+    private final int _mask;
+    /** Key words (xor'ed with data words) and data words of all
+     *  entries. */
+    private final long[] _keys, _data;
+}
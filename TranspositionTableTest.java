@@ -0,0 +1,109 @@
+package jump61;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.TranspositionTable.*;
+
+/** Unit tests of TranspositionTables.
+ *  @author Melody Ma
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testRoundTrip() {
+        TranspositionTable table = new TranspositionTable(LOG_SIZE);
+        int[] values = { 0, 1, -1, AI.WIN_NUM, -AI.WIN_NUM,
+                         Integer.MAX_VALUE - 1, -(Integer.MAX_VALUE - 1) };
+        int[] moves = { -1, 0, 99 };
+        int[] depths = { 0, 1, Defaults.MAX_SEARCH_DEPTH };
+        long key;
+        key = 1;
+        for (int bound : new int[] { EXACT, LOWER, UPPER }) {
+            for (int value : values) {
+                for (int move : moves) {
+                    for (int depth : depths) {
+                        key = key * MULTIPLIER + 1;
+                        table.store(key, depth, bound, value, move);
+                        long entry = table.probe(key);
+                        assertNotEquals("missing entry", 0, entry);
+                        assertEquals("wrong bound", bound, bound(entry));
+                        assertEquals("wrong value", value, value(entry));
+                        assertEquals("wrong move", move, move(entry));
+                        assertEquals("wrong depth", depth, depth(entry));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(LOG_SIZE);
+        long deep = bucketKey(1), shallow = bucketKey(2), other = bucketKey(3);
+        table.store(deep, 5, EXACT, 10, 1);
+        table.store(shallow, 3, EXACT, 20, 2);
+        assertEquals("deep entry replaced", 10, value(table.probe(deep)));
+        assertEquals("shallow entry missing", 20,
+                     value(table.probe(shallow)));
+        table.store(other, 2, EXACT, 30, 3);
+        assertEquals("deep entry replaced", 10, value(table.probe(deep)));
+        assertEquals("second entry kept", 0, table.probe(shallow));
+        assertEquals("new entry missing", 30, value(table.probe(other)));
+        table.store(shallow, 7, EXACT, 40, 4);
+        assertEquals("deep entry kept", 0, table.probe(deep));
+        assertEquals("deeper entry missing", 40,
+                     value(table.probe(shallow)));
+        assertEquals("second entry replaced", 30, value(table.probe(other)));
+        table.store(shallow, 1, LOWER, 50, 5);
+        assertEquals("same position not replaced", 50,
+                     value(table.probe(shallow)));
+        table.clear();
+        assertEquals("entry not cleared", 0, table.probe(shallow));
+    }
+
+    @Test
+    public void testMismatch() throws Exception {
+        TranspositionTable table = new TranspositionTable(LOG_SIZE);
+        long key1 = bucketKey(1), key2 = bucketKey(2);
+        table.store(key1, 5, EXACT, 10, 1);
+        assertEquals("wrong position found", 0, table.probe(key2));
+        table.store(key2, 3, UPPER, -20, 2);
+        long[] data = longs(table, "_data");
+        long first = data[BUCKET * 2], second = data[BUCKET * 2 + 1];
+        data[BUCKET * 2] = second;
+        data[BUCKET * 2 + 1] = first;
+        assertEquals("torn entry accepted", 0, table.probe(key1));
+        assertEquals("torn entry accepted", 0, table.probe(key2));
+        data[BUCKET * 2] = first;
+        assertEquals("entry lost", 10, value(table.probe(key1)));
+        data[BUCKET * 2] ^= 1L << 36;
+        assertEquals("corrupt entry accepted", 0, table.probe(key1));
+    }
+
+    /** Return the Kth distinct key that falls in bucket BUCKET of a
+     *  table of 2**LOG_SIZE buckets. */
+    private static long bucketKey(int k) {
+        return ((long) k << LOG_SIZE) | BUCKET;
+    }
+
+    /** Return the long[] field named NAME of TABLE. */
+    private static long[] longs(TranspositionTable table, String name)
+        throws Exception {
+        Field field = TranspositionTable.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (long[]) field.get(table);
+    }
+
+    /** Multiplier for generating a sequence of distinct keys. */
+    private static final long MULTIPLIER = 6364136223846793005L;
+
+    /** Log of the number of buckets in the tables tested. */
+    private static final int LOG_SIZE = 4;
+
+    /** The bucket used by tests of replacement. */
+    private static final int BUCKET = 5;
+
+}
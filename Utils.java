@@ -25,6 +25,15 @@ class Utils {
         return Long.parseLong(numeral);
     }
 
+    /** Return the earlier of DEADLINE1 and DEADLINE2, which are
+     *  System.nanoTime() values, or 0 for no deadline. */
+    static long earlier(long deadline1, long deadline2) {
+        if (deadline1 == 0 || (deadline2 != 0 && deadline2 - deadline1 < 0)) {
+            return deadline2;
+        }
+        return deadline1;
+    }
+
     /** Set the message level for this package to LEVEL.  The debug() routine
      *  (below) will print any message with a positive level that is <= LEVEL.
      *  Initially, the level is 0. */
@@ -0,0 +1,134 @@
+package jump61;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static jump61.Side.*;
+
+/** JMH benchmarks of the basic Board operations used by searches, each
+ *  on a fixed mid-game position of each size.  A move cannot be timed
+ *  without undoing it (or the position would drift from one call to
+ *  the next), so the move benchmarks time a move and its undo together.
+ *  @author Melody Ma
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBench {
+
+    /** Number of squares on a side. */
+    @Param({ "4", "6", "10" })
+    public int size;
+
+    /** Set up _board with a position reached by random moves from a
+     *  fixed seed, and choose the moves to be timed. */
+    @Setup
+    public void setUp() {
+        _board = position(size, SEED);
+        _player = _board.whoseMove();
+        _quiet = _cascade = -1;
+        for (int i = 0; i < size * size; i += 1) {
+            Square sq = _board.get(i);
+            if (sq.getSide() == _player
+                && sq.getSpots() == _board.neighbors(i)) {
+                _cascade = i;
+            } else if (sq.getSide() != _player.opposite()) {
+                _quiet = i;
+            }
+        }
+        if (_cascade == -1) {
+            _cascade = _quiet;
+            _board.set(_board.row(_cascade), _board.col(_cascade),
+                       _board.neighbors(_cascade), _player);
+            _quiet = -1;
+            for (int i = 0; i < size * size && _quiet == -1; i += 1) {
+                if (i != _cascade && _board.isLegal(_player, i)
+                    && _board.get(i).getSpots() < _board.neighbors(i)) {
+                    _quiet = i;
+                }
+            }
+        }
+    }
+
+    /** A move that does not cause any square to jump, and its undo. */
+    @Benchmark
+    public int addSpotUndo() {
+        _board.addSpot(_player, _quiet);
+        int result = _board.numPieces();
+        _board.undo();
+        return result;
+    }
+
+    /** A move that starts a cascade of jumps, and its undo. */
+    @Benchmark
+    public int addSpotCascadeUndo() {
+        _board.addSpot(_player, _cascade);
+        int result = _board.numPieces();
+        _board.undo();
+        return result;
+    }
+
+    /** Checking for a winner. */
+    @Benchmark
+    public Side getWinner() {
+        return _board.getWinner();
+    }
+
+    /** Counting a player's squares. */
+    @Benchmark
+    public int numOfSide() {
+        return _board.numOfSide(RED);
+    }
+
+    /** Copying a board. */
+    @Benchmark
+    public Board copy() {
+        return new Board(_board);
+    }
+
+    /** Return a board of size N on which about N * N random legal moves,
+     *  chosen using SEED, have been made without ending the game. */
+    static Board position(int N, long seed) {
+        Random random = new Random(seed);
+        Board board = new Board(N);
+        for (int k = 0; k < N * N; k += 1) {
+            Side player = board.whoseMove();
+            int move = random.nextInt(N * N);
+            if (board.isLegal(player, move)) {
+                board.addSpot(player, move);
+                if (board.getWinner() != null) {
+                    board.undo();
+                }
+            }
+        }
+        return new Board(board);
+    }
+
+    /** Seed for the benchmark positions. */
+    static final long SEED = 61;
+
+    /** The position being measured. */
+    private Board _board;
+
+    /** The player to move on _board. */
+    private Side _player;
+
+    /** Squares on which a move by _player does not, and does, cause a
+     *  jump. */
+    private int _quiet, _cascade;
+}
@@ -0,0 +1,71 @@
+package jump61;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JMH benchmark of the AI's minimax search: a fixed-depth search from
+ *  the same fixed positions as BoardBench, starting each time with an
+ *  empty transposition table and fresh move-ordering statistics.
+ *  @author Melody Ma
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBench {
+
+    /** Number of squares on a side. */
+    @Param({ "4", "6", "10" })
+    public int size;
+
+    /** Depth of search. */
+    @Param({ "4" })
+    public int depth;
+
+    /** Set up the position to be searched. */
+    @Setup
+    public void setUp() {
+        _board = BoardBench.position(size, BoardBench.SEED);
+        _table = new TranspositionTable(Defaults.TABLE_BITS);
+    }
+
+    /** Forget the results of previous searches. */
+    @Setup(Level.Invocation)
+    public void reset() {
+        _table.clear();
+        _searcher = new Searcher(_table, new CriticalMassEvaluator(), null);
+    }
+
+    /** One search, returning the move found. */
+    @Benchmark
+    public int search() {
+        return _searcher.deepen(_board, 1, depth, _stop, 0, 0);
+    }
+
+    /** The position searched. */
+    private Board _board;
+
+    /** Transposition table used by _searcher. */
+    private TranspositionTable _table;
+
+    /** The searcher being measured. */
+    private Searcher _searcher;
+
+    /** Never set: searches run to completion. */
+    private final AtomicBoolean _stop = new AtomicBoolean(false);
+}